@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.bench;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import labs.pm.data.ProductManager;
+import labs.pm.data.Rating;
+
+/**
+ * {@code LoadGenerator} drives {@link ProductManager} with a configurable mix
+ * of operations from several threads and reports throughput, latency
+ * percentiles, allocation rate and garbage collection pauses.
+ * <br>
+ * Every thread draws its operations from its own random generator split from
+ * one seed, so the sequence of operations each thread performs is the same on
+ * every run with the same settings. Products are picked with a Zipfian
+ * distribution, so a few hot products get most of the traffic.
+ * <br>
+ * Settings are given as {@code name=value} arguments, for example
+ * {@code java labs.pm.bench.LoadGenerator threads=8 seconds=600 skew=1.1}:
+ * <ul>
+ * <li>{@code seed} random seed, default 42</li>
+ * <li>{@code threads} worker threads, default 4</li>
+ * <li>{@code seconds} run time, default 30</li>
+ * <li>{@code warmup} seconds run before measuring, default 5</li>
+ * <li>{@code interval} seconds between progress lines, default 10</li>
+ * <li>{@code products} catalog size, default 10000</li>
+ * <li>{@code create}, {@code review}, {@code lookup}, {@code report} relative
+ * operation weights, default 1, 20, 70, 9</li>
+ * <li>{@code skew} Zipf exponent, 0 for uniform, default 1.0</li>
+ * <li>{@code food} share of Food among created products, default 0.5</li>
+ * <li>{@code locales} comma separated language tags, one catalog each,
+ * default en-GB</li>
+ * </ul>
+ *
+ * @author User
+ */
+public class LoadGenerator {
+
+    private static final String[] OPERATIONS = {"create", "review", "lookup", "report"};
+    private static final String[] COMMENTS = {
+        "Fresh and tasty", "Not fresh at all", "Good value", "Too sweet", "Would buy again"};
+
+    private final Map<String, String> settings;
+    private final long seed;
+    private final int threads;
+    private final int products;
+    private final double foodShare;
+    private final double[] operationCdf;
+    private final double[] productCdf;
+    private final ProductManager[] managers;
+
+    /**
+     * Set once warm-up is over and measured operations start
+     */
+    private volatile boolean measuring;
+
+    /**
+     * Set when the run is over
+     */
+    private volatile boolean stopped;
+
+    private final LongAdder completed = new LongAdder();
+    private final AtomicLong gcPauses = new AtomicLong();
+    private final AtomicLong gcPauseMillis = new AtomicLong();
+    private final AtomicLong gcMaxPauseMillis = new AtomicLong();
+
+    /**
+     * Constructs a load generator from {@code name=value} settings.
+     *
+     * @param settings The settings, see the class description
+     */
+    public LoadGenerator(Map<String, String> settings) {
+        this.settings = settings;
+        seed = Long.parseLong(setting("seed", "42"));
+        threads = Integer.parseInt(setting("threads", "4"));
+        products = Integer.parseInt(setting("products", "10000"));
+        foodShare = Double.parseDouble(setting("food", "0.5"));
+        double[] weights = new double[OPERATIONS.length];
+        String[] defaults = {"1", "20", "70", "9"};
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            weights[i] = Double.parseDouble(setting(OPERATIONS[i], defaults[i]));
+        }
+        operationCdf = cdf(weights);
+        double skew = Double.parseDouble(setting("skew", "1.0"));
+        double[] productWeights = new double[products];
+        for (int i = 0; i < products; i++) {
+            productWeights[i] = 1 / Math.pow(i + 1, skew);
+        }
+        productCdf = cdf(productWeights);
+        String[] tags = setting("locales", "en-GB").split(",");
+        managers = new ProductManager[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            managers[i] = new ProductManager(Locale.forLanguageTag(tags[i].trim()));
+        }
+    }
+
+    /**
+     * Runs the load generator with settings from the command line.
+     *
+     * @param args {@code name=value} settings
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> settings = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            settings.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        new LoadGenerator(settings).run();
+    }
+
+    /**
+     * Populates the catalogs, runs the warm-up and the measured run, and
+     * prints the results.
+     *
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public void run() throws InterruptedException {
+        long warmupMillis = Long.parseLong(setting("warmup", "5")) * 1000;
+        long runMillis = Long.parseLong(setting("seconds", "30")) * 1000;
+        long intervalMillis = Long.parseLong(setting("interval", "10")) * 1000;
+        SplittableRandom random = new SplittableRandom(seed);
+        for (ProductManager manager : managers) {
+            for (int id = 0; id < products; id++) {
+                create(manager, id, random);
+            }
+        }
+        listenForGc();
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(random.split());
+            workers.add(worker);
+            worker.thread.start();
+        }
+        Thread.sleep(warmupMillis);
+        long gcPausesBefore = gcPauses.get();
+        long gcMillisBefore = gcPauseMillis.get();
+        gcMaxPauseMillis.set(0);
+        completed.reset();
+        measuring = true;
+        long start = System.nanoTime();
+        long end = start + runMillis * 1_000_000;
+        long lastCount = 0;
+        long lastTime = start;
+        while (System.nanoTime() < end) {
+            Thread.sleep(Math.max(1, Math.min(intervalMillis, (end - System.nanoTime()) / 1_000_000)));
+            long count = completed.sum();
+            long now = System.nanoTime();
+            System.out.printf("%6.0f s  %,12.0f ops/s%n", (now - start) / 1e9, (count - lastCount) * 1e9 / (now - lastTime));
+            lastCount = count;
+            lastTime = now;
+        }
+        stopped = true;
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%nthroughput  %,.0f ops/s over %.0f s with %d threads%n", completed.sum() / seconds, seconds, threads);
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            Histogram merged = new Histogram();
+            for (Worker worker : workers) {
+                merged.add(worker.latencies[op]);
+            }
+            System.out.printf("%-7s n=%,d  p50=%,d ns  p90=%,d ns  p99=%,d ns  p99.9=%,d ns  max=%,d ns%n",
+                    OPERATIONS[op], merged.count, merged.percentile(50), merged.percentile(90),
+                    merged.percentile(99), merged.percentile(99.9), merged.max);
+        }
+        long allocated = 0;
+        for (Worker worker : workers) {
+            allocated += worker.allocatedBytes;
+        }
+        System.out.printf("allocation  %,.1f MB/s%n", allocated / seconds / 1e6);
+        System.out.printf("gc          %d pauses, %d ms total, %d ms max%n",
+                gcPauses.get() - gcPausesBefore, gcPauseMillis.get() - gcMillisBefore, gcMaxPauseMillis.get());
+    }
+
+    private String setting(String name, String defaultValue) {
+        return settings.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Runs one operation against one of the catalogs.
+     *
+     * @param op The operation index
+     * @param random The random generator of the calling thread
+     */
+    private void execute(int op, SplittableRandom random) {
+        ProductManager manager = managers[random.nextInt(managers.length)];
+        int id = pick(productCdf, random.nextDouble());
+        switch (op) {
+            case 0 ->
+                create(manager, id, random);
+            case 1 ->
+                manager.reviewProduct(id, Rating.values()[1 + random.nextInt(5)],
+                        COMMENTS[random.nextInt(COMMENTS.length)]);
+            case 2 ->
+                manager.findProduct(id);
+            default ->
+                manager.formatProductReport(manager.snapshot(), id);
+        }
+    }
+
+    private void create(ProductManager manager, int id, SplittableRandom random) {
+        BigDecimal price = BigDecimal.valueOf(50 + random.nextInt(1000), 2);
+        if (random.nextDouble() < foodShare) {
+            manager.createProduct(id, "Food " + id, price, Rating.NOT_RATED,
+                    LocalDate.now().plusDays(random.nextInt(30)));
+        } else {
+            manager.createProduct(id, "Drink " + id, price, Rating.NOT_RATED);
+        }
+    }
+
+    /**
+     * Records every garbage collection reported by the JVM.
+     */
+    private void listenForGc() {
+        NotificationListener listener = (Notification notification, Object handback) -> {
+            if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                long duration = GarbageCollectionNotificationInfo
+                        .from((CompositeData) notification.getUserData()).getGcInfo().getDuration();
+                gcPauses.incrementAndGet();
+                gcPauseMillis.addAndGet(duration);
+                gcMaxPauseMillis.accumulateAndGet(duration, Math::max);
+            }
+        };
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    private static double[] cdf(double[] weights) {
+        double total = 0;
+        for (double w : weights) {
+            total += w;
+        }
+        double[] cdf = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i];
+            cdf[i] = sum / total;
+        }
+        return cdf;
+    }
+
+    private static int pick(double[] cdf, double u) {
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A thread running operations and recording their latencies.
+     */
+    private final class Worker {
+
+        final Thread thread;
+        final Histogram[] latencies = new Histogram[OPERATIONS.length];
+        long allocatedBytes;
+
+        Worker(SplittableRandom random) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new Histogram();
+            }
+            thread = new Thread(() -> loop(random), "load-generator");
+        }
+
+        private void loop(SplittableRandom random) {
+            com.sun.management.ThreadMXBean threadBean
+                    = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            boolean counting = false;
+            long allocatedAtStart = 0;
+            while (!stopped) {
+                if (!counting && measuring) {
+                    counting = true;
+                    allocatedAtStart = threadBean.getCurrentThreadAllocatedBytes();
+                }
+                int op = pick(operationCdf, random.nextDouble());
+                long start = System.nanoTime();
+                execute(op, random);
+                long elapsed = System.nanoTime() - start;
+                if (counting) {
+                    latencies[op].record(elapsed);
+                    completed.increment();
+                }
+            }
+            allocatedBytes = threadBean.getCurrentThreadAllocatedBytes() - allocatedAtStart;
+        }
+    }
+
+    /**
+     * A log-linear latency histogram: each power of two is split into eight
+     * buckets, so percentiles are accurate to within about 12%.
+     */
+    private static final class Histogram {
+
+        final long[] buckets = new long[64 * 8];
+        long count;
+        long max;
+
+        void record(long value) {
+            buckets[index(Math.max(1, value))]++;
+            count++;
+            max = Math.max(max, value);
+        }
+
+        void add(Histogram other) {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] += other.buckets[i];
+            }
+            count += other.count;
+            max = Math.max(max, other.max);
+        }
+
+        long percentile(double p) {
+            long rank = (long) Math.ceil(count * p / 100);
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return Math.min(max, upperBound(i));
+                }
+            }
+            return max;
+        }
+
+        private static int index(long value) {
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (exponent < 3) ? (int) (value << (3 - exponent)) & 7 : (int) (value >>> (exponent - 3)) & 7;
+            return exponent * 8 + sub;
+        }
+
+        private static long upperBound(int index) {
+            int exponent = index / 8;
+            int sub = index % 8;
+            return (exponent < 3) ? (1L << (exponent + 1)) - 1 : ((8L + sub + 1) << (exponent - 3)) - 1;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.bench;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import labs.pm.data.Drink;
+import labs.pm.data.Product;
+import labs.pm.data.ProductIdMap;
+import labs.pm.data.Rating;
+
+/**
+ * {@code ProductIdMapBenchmark} compares the memory footprint and lookup speed
+ * of {@link ProductIdMap} against a {@code HashMap<Integer, Product>} holding
+ * the same products.
+ * <br>
+ * Usage: {@code java labs.pm.bench.ProductIdMapBenchmark [products] [lookups]}
+ *
+ * @author User
+ */
+public class ProductIdMapBenchmark {
+
+    /**
+     * Runs the benchmark and prints the results.
+     *
+     * @param args optional product count and lookup count
+     */
+    public static void main(String[] args) {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 1_000_000;
+        int lookups = (args.length > 1) ? Integer.parseInt(args[1]) : 10_000_000;
+        Product[] products = new Product[count];
+        for (int i = 0; i < count; i++) {
+            products[i] = new Drink(i * 7, "Drink " + i, BigDecimal.ONE, Rating.NOT_RATED);
+        }
+        int[] ids = new SplittableRandom(42).ints(lookups, 0, count).map(i -> i * 7).toArray();
+
+        long before = usedMemory();
+        Map<Integer, Product> hashMap = new HashMap<>();
+        for (Product p : products) {
+            hashMap.put(p.getId(), p);
+        }
+        long hashMapBytes = usedMemory() - before;
+
+        before = usedMemory();
+        ProductIdMap idMap = new ProductIdMap();
+        for (Product p : products) {
+            idMap.put(p.getId(), p);
+        }
+        long idMapBytes = usedMemory() - before;
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            long check = 0;
+            for (int id : ids) {
+                check += hashMap.get(id).getId();
+            }
+            long hashMapNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int id : ids) {
+                check -= idMap.get(id).getId();
+            }
+            long idMapNanos = System.nanoTime() - start;
+            System.out.printf("round %d: HashMap %.1f ns/lookup, ProductIdMap %.1f ns/lookup (check %d)%n",
+                    round, (double) hashMapNanos / lookups, (double) idMapNanos / lookups, check);
+        }
+        System.out.printf("memory for %d products: HashMap %d KiB, ProductIdMap %d KiB%n",
+                count, hashMapBytes / 1024, idMapBytes / 1024);
+    }
+
+    /**
+     * Measures heap usage after asking for a full collection.
+     *
+     * @return the number of used heap bytes
+     */
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.bench;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntConsumer;
+import labs.pm.data.CatalogSnapshot;
+import labs.pm.data.ProductManager;
+import labs.pm.data.Rating;
+
+/**
+ * {@code ReportAllocationBenchmark} measures how many bytes rendering one
+ * product report allocates, on a platform thread and on virtual threads.
+ * <br>
+ * Reports are printed to a discarding stream. On a platform thread the bytes
+ * allocated by that thread are counted. On virtual threads every report runs
+ * in its own task, as with {@code AsyncProductManager}, and the bytes
+ * allocated by all threads are compared with the same number of empty tasks,
+ * so the cost of starting the tasks is left out.
+ * <br>
+ * Usage:
+ * {@code java labs.pm.bench.ReportAllocationBenchmark [reports] [reviews]}
+ *
+ * @author User
+ */
+public class ReportAllocationBenchmark {
+
+    /**
+     * The number of products reported on in rotation
+     */
+    private static final int PRODUCTS = 100;
+
+    private static final com.sun.management.ThreadMXBean THREADS
+            = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Runs the benchmark and prints the results.
+     *
+     * @param args optional report count and reviews per product
+     */
+    public static void main(String[] args) {
+        int reports = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+        int reviews = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+
+        ProductManager pm = new ProductManager(Locale.UK);
+        for (int id = 0; id < PRODUCTS; id++) {
+            if (id % 2 == 0) {
+                pm.createProduct(id, "Drink " + id, BigDecimal.valueOf(100 + id, 2), Rating.NOT_RATED);
+            } else {
+                pm.createProduct(id, "Food " + id, BigDecimal.valueOf(300 + id, 2), Rating.NOT_RATED,
+                        LocalDate.of(2025, 1, 1).plusDays(id));
+            }
+            for (int r = 0; r < reviews; r++) {
+                pm.reviewProduct(id, Rating.values()[1 + r % 5], "Review " + r + " of product " + id);
+            }
+        }
+        CatalogSnapshot snapshot = pm.snapshot();
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream(), false, console.charset()));
+        try {
+            IntConsumer print = i -> pm.printProductReport(snapshot, i % PRODUCTS);
+            IntConsumer format = i -> pm.formatProductReport(snapshot, i % PRODUCTS);
+            IntConsumer nothing = i -> {
+            };
+            for (int round = 1; round <= 3; round++) {
+                double printed = onPlatformThread(print, reports);
+                double formatted = onPlatformThread(format, reports);
+                double virtualPrinted = onVirtualThreads(print, reports) - onVirtualThreads(nothing, reports);
+                console.printf("round %d: print %.1f B/report, format %.1f B/report,"
+                        + " print on virtual threads %.1f B/report%n",
+                        round, printed, formatted, virtualPrinted);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Runs reports on the calling thread.
+     *
+     * @return the bytes allocated per report
+     */
+    private static double onPlatformThread(IntConsumer report, int reports) {
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < reports; i++) {
+            report.accept(i);
+        }
+        return (double) (THREADS.getCurrentThreadAllocatedBytes() - before) / reports;
+    }
+
+    /**
+     * Runs every report in a task of its own on a virtual thread.
+     *
+     * @return the bytes allocated by all threads per report
+     */
+    private static double onVirtualThreads(IntConsumer report, int reports) {
+        long before = THREADS.getTotalThreadAllocatedBytes();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < reports; i++) {
+                int task = i;
+                executor.execute(() -> report.accept(task));
+            }
+        }
+        return (double) (THREADS.getTotalThreadAllocatedBytes() - before) / reports;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.bench;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@code StartupBenchmark} measures the time from launching a new JVM running
+ * {@link labs.pm.app.Shop} to the first line of its first product report.
+ * <br>
+ * Each launch mode is run several times and the minimum and median times are
+ * printed. The modes compare running without class data sharing, with the
+ * default JDK archive and, if given, with an application archive created by
+ * {@code ant cds}. The archive is measured with the same JVM options as the
+ * other modes, so its row shows the effect of the archive alone. The C1-only
+ * JIT and serial collector options that {@code ant run-cds} adds get rows of
+ * their own, with and without the archive.
+ * <br>
+ * An archive only applies to the class path it was created with, so when one
+ * is given every mode runs Shop from the application jar next to it, and the
+ * archive modes use {@code -Xshare:on} to fail rather than silently run
+ * without it.
+ * <br>
+ * Usage:
+ * {@code java labs.pm.bench.StartupBenchmark [runs] [archive.jsa [app.jar]]}
+ *
+ * @author User
+ */
+public class StartupBenchmark {
+
+    /**
+     * Runs the benchmark and prints the results.
+     *
+     * @param args optional run count, application archive path and
+     * application jar, by default {@code ProductManagement.jar} in the
+     * directory of the archive
+     * @throws IOException if a JVM cannot be launched
+     * @throws InterruptedException if interrupted while waiting for a JVM
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int runs = (args.length > 0) ? Integer.parseInt(args[0]) : 10;
+        String classPath = System.getProperty("java.class.path");
+        if (args.length > 1) {
+            File archive = new File(args[1]).getAbsoluteFile();
+            classPath = (args.length > 2) ? args[2] : new File(archive.getParentFile(), "ProductManagement.jar").getPath();
+        }
+        measure("no CDS", runs, classPath, "-Xshare:off");
+        measure("JDK CDS", runs, classPath, "-Xshare:auto");
+        measure("JDK CDS+C1+Serial", runs, classPath, "-Xshare:auto", "-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC");
+        if (args.length > 1) {
+            String archive = "-XX:SharedArchiveFile=" + args[1];
+            measure("AppCDS", runs, classPath, "-Xshare:on", archive);
+            measure("AppCDS+C1+Serial", runs, classPath, "-Xshare:on", archive,
+                    "-XX:TieredStopAtLevel=1", "-XX:+UseSerialGC");
+        }
+    }
+
+    /**
+     * Launches Shop repeatedly with the given JVM options and prints the
+     * time to first report.
+     *
+     * @param mode The name of the launch mode
+     * @param runs The number of launches
+     * @param classPath The class path to run Shop from
+     * @param jvmArgs The JVM options of the launch mode
+     * @throws IOException if a JVM cannot be launched
+     * @throws InterruptedException if interrupted while waiting for a JVM
+     */
+    private static void measure(String mode, int runs, String classPath, String... jvmArgs)
+            throws IOException, InterruptedException {
+        long[] millis = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            millis[i] = timeToFirstReport(classPath, jvmArgs);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-17s min %4d ms, median %4d ms over %d runs%n", mode, millis[0], millis[runs / 2], runs);
+    }
+
+    /**
+     * Launches Shop once and waits for the first report line.
+     *
+     * @param classPath The class path to run Shop from
+     * @param jvmArgs The JVM options to launch with
+     * @return the milliseconds from launch to the first report line
+     * @throws IOException if the JVM cannot be launched
+     * @throws InterruptedException if interrupted while waiting for the JVM
+     */
+    private static long timeToFirstReport(String classPath, String... jvmArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(Arrays.asList(jvmArgs));
+        command.add("-cp");
+        command.add(classPath);
+        command.add("labs.pm.app.Shop");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long elapsed = -1;
+        try (BufferedReader out = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                // Shop prints a separator line before its first report; lines
+                // in brackets are JVM log messages
+                if (elapsed < 0 && !line.isBlank() && !line.startsWith("=") && !line.startsWith("[")) {
+                    elapsed = (System.nanoTime() - start) / 1_000_000;
+                }
+            }
+        }
+        if (process.waitFor() != 0 || elapsed < 0) {
+            throw new IllegalStateException("Shop failed to print a report: " + command);
+        }
+        return elapsed;
+    }
+}
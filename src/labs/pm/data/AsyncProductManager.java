@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * {@code AsyncProductManager} is a non-blocking facade over a
+ * {@link ProductManager}. Every operation is run on an executor and returns a
+ * {@link CompletableFuture} straight away, so callers can pipeline many
+ * operations without tying up their own threads.
+ * <br>
+ * Operations on the same product id are applied in the order they were
+ * submitted, while operations on different products proceed in parallel. By
+ * default each operation runs on its own virtual thread.
+ *
+ * @author User
+ */
+public class AsyncProductManager implements AutoCloseable {
+
+    /**
+     * The product manager every operation is delegated to
+     */
+    private final ProductManager productManager;
+
+    /**
+     * The executor operations run on
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Whether the executor was created here and must be closed with this
+     * facade
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * The last pending operation of each product with operations in flight
+     */
+    private final ConcurrentMap<Integer, CompletableFuture<?>> tails = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs an async facade that runs each operation on a new virtual
+     * thread.
+     *
+     * @param productManager The product manager to delegate to
+     */
+    public AsyncProductManager(ProductManager productManager) {
+        this(productManager, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    /**
+     * Constructs an async facade that runs operations on the given executor.
+     * The executor is not shut down when this facade is closed.
+     *
+     * @param productManager The product manager to delegate to
+     * @param executor The executor to run operations on
+     */
+    public AsyncProductManager(ProductManager productManager, ExecutorService executor) {
+        this(productManager, executor, false);
+    }
+
+    private AsyncProductManager(ProductManager productManager, ExecutorService executor, boolean ownsExecutor) {
+        this.productManager = productManager;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Creates a Food product asynchronously.
+     *
+     * @param id The unique identifier for the product
+     * @param name The name of the product
+     * @param price The price of the product
+     * @param rating The product rating
+     * @param bestBefore The expiration date of the food product
+     * @return a future completed with the new Food product
+     */
+    public CompletableFuture<Product> createProduct(int id, String name, BigDecimal price, Rating rating, LocalDate bestBefore) {
+        return inOrder(id, () -> productManager.createProduct(id, name, price, rating, bestBefore));
+    }
+
+    /**
+     * Creates a Drink product asynchronously.
+     *
+     * @param id The unique identifier for the product
+     * @param name The name of the product
+     * @param price The price of the product
+     * @param rating The product rating
+     * @return a future completed with the new Drink product
+     */
+    public CompletableFuture<Product> createProduct(int id, String name, BigDecimal price, Rating rating) {
+        return inOrder(id, () -> productManager.createProduct(id, name, price, rating));
+    }
+
+    /**
+     * Reviews a product in the catalog asynchronously. Reviews of the same
+     * product are applied in submission order.
+     *
+     * @param id The unique identifier of the product to be reviewed
+     * @param rating The rating to assign to the product
+     * @param comments The review comments
+     * @return a future completed with the reviewed product, or with
+     * {@code null} if there is no such product
+     */
+    public CompletableFuture<Product> reviewProduct(int id, Rating rating, String comments) {
+        return inOrder(id, () -> productManager.reviewProduct(id, rating, comments));
+    }
+
+    /**
+     * Looks up a product asynchronously. The lookup sees every earlier
+     * operation submitted for the same product.
+     *
+     * @param id The unique identifier of the product
+     * @return a future completed with the product, or with {@code null} if
+     * there is no such product
+     */
+    public CompletableFuture<Product> findProduct(int id) {
+        return inOrder(id, () -> productManager.findProduct(id));
+    }
+
+    /**
+     * Formats a product report asynchronously from a single catalog snapshot.
+     * The report sees every earlier operation submitted for the same product.
+     *
+     * @param id The unique identifier of the product
+     * @return a future completed with the report text, or with {@code null} if
+     * there is no such product
+     */
+    public CompletableFuture<String> productReport(int id) {
+        return inOrder(id, () -> productManager.formatProductReport(productManager.snapshot(), id));
+    }
+
+    /**
+     * Prints a product report to the console asynchronously from a single
+     * catalog snapshot. Unlike {@link #productReport(int)} no report string
+     * is built; the report is rendered straight into a pooled buffer and
+     * written out. The report sees every earlier operation submitted for the
+     * same product.
+     *
+     * @param id The unique identifier of the product
+     * @return a future completed once the report is printed
+     */
+    public CompletableFuture<Void> printProductReport(int id) {
+        return inOrder(id, () -> {
+            productManager.printProductReport(productManager.snapshot(), id);
+            return null;
+        });
+    }
+
+    /**
+     * Runs an operation after all operations previously submitted for the same
+     * product have completed, successfully or not. If the executor refuses
+     * the operation, its future fails with the rejection so that the
+     * operations queued behind it still run.
+     *
+     * @param <T> The result type of the operation
+     * @param id The product id the operation is ordered on
+     * @param operation The operation to run
+     * @return a future completed with the result of the operation
+     */
+    private <T> CompletableFuture<T> inOrder(int id, Supplier<T> operation) {
+        CompletableFuture<T> next = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                next.complete(operation.get());
+            } catch (Throwable e) {
+                next.completeExceptionally(e);
+            }
+        };
+        tails.compute(id, (key, tail) -> {
+            if (tail == null) {
+                submit(task, next);
+            } else {
+                tail.whenComplete((result, failure) -> submit(task, next));
+            }
+            return next;
+        });
+        next.whenComplete((result, failure) -> tails.remove(id, next));
+        // callers get a copy so cancelling it cannot break the ordering chain
+        return next.copy();
+    }
+
+    /**
+     * Hands a task to the executor, failing its future if the executor
+     * throws instead of accepting it.
+     *
+     * @param task The task to run
+     * @param future The future the task completes
+     */
+    private void submit(Runnable task, CompletableFuture<?> future) {
+        try {
+            executor.execute(task);
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Closes this facade. If the executor was created by this facade, waits for
+     * submitted operations to finish and shuts it down.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            executor.close();
+        }
+    }
+}
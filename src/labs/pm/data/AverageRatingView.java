@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.Map;
+
+/**
+ * {@code AverageRatingView} materializes the average rating, in stars, of the
+ * rated products of each product type. Products that are
+ * {@link Rating#NOT_RATED not rated} are left out of the averages.
+ *
+ * @author User
+ */
+public class AverageRatingView implements MaterializedView<Map<Class<? extends Product>, Double>> {
+
+    private long foodStars;
+    private long foodCount;
+    private long drinkStars;
+    private long drinkCount;
+
+    /**
+     * Whether each delta publishes right away, false while a change with two
+     * deltas is being applied
+     */
+    private boolean publish = true;
+
+    /**
+     * The averages as of the latest completed change
+     */
+    private volatile Map<Class<? extends Product>, Double> averages = averages();
+
+    /**
+     * Adds the rating of a product to the averages of its type.
+     *
+     * @param product The product to add
+     */
+    @Override
+    public synchronized void apply(Product product) {
+        update(product, 1);
+    }
+
+    /**
+     * Removes the rating of a product from the averages of its type.
+     *
+     * @param product The product to remove
+     */
+    @Override
+    public synchronized void retract(Product product) {
+        update(product, -1);
+    }
+
+    /**
+     * Applies both deltas of a change before publishing, so readers never see
+     * the state between the retraction and the application.
+     *
+     * @param previous The product before the change, or {@code null}
+     * @param current The product after the change, or {@code null}
+     */
+    @Override
+    public synchronized void productChanged(Product previous, Product current) {
+        publish = false;
+        MaterializedView.super.productChanged(previous, current);
+        publish = true;
+        averages = averages();
+    }
+
+    /**
+     * Reads the average rating of each product type.
+     *
+     * @return the average number of stars keyed by {@code Food.class} and
+     * {@code Drink.class}; 0 for a type without rated products
+     */
+    @Override
+    public Map<Class<? extends Product>, Double> read() {
+        return averages;
+    }
+
+    private void update(Product product, int sign) {
+        int stars = product.getRating().ordinal();
+        if (stars == 0) {
+            return;
+        }
+        if (product instanceof Food) {
+            foodStars += sign * stars;
+            foodCount += sign;
+        } else {
+            drinkStars += sign * stars;
+            drinkCount += sign;
+        }
+        if (publish) {
+            averages = averages();
+        }
+    }
+
+    private Map<Class<? extends Product>, Double> averages() {
+        return Map.of(
+                Food.class, (foodCount == 0) ? 0.0 : (double) foodStars / foodCount,
+                Drink.class, (drinkCount == 0) ? 0.0 : (double) drinkStars / drinkCount);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+/**
+ * A callback interface for components that follow changes to the catalog of a
+ * {@link ProductManager}.
+ * <br>
+ * Listeners are called while the catalog write is being published, one change
+ * at a time and in the order the changes are applied, so a listener always
+ * sees the same sequence of versions as the catalog itself. Implementations
+ * should return quickly and must not write back to the same
+ * {@link ProductManager} from inside the callback. An exception thrown by a
+ * listener is reported and does not stop the other listeners from being
+ * notified; the change itself has already been published.
+ *
+ * @author User
+ */
+public interface CatalogListener {
+
+    /**
+     * Called when a product is added to, replaced in or removed from the
+     * catalog.
+     *
+     * @param previous The product as it was before the change, or {@code null}
+     * if the product has just been added
+     * @param current The product as it is after the change, or {@code null} if
+     * the product has just been removed
+     */
+    void productChanged(Product previous, Product current);
+
+    /**
+     * Called when a review is added to a product in the catalog, right after
+     * the reviewed product has been published. Does nothing by default.
+     *
+     * @param product The product as it is after the review
+     * @param review The new review
+     */
+    default void productReviewed(Product product, Review review) {
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * {@code CatalogSnapshot} is an immutable, point-in-time view of the products
+ * and reviews held by a {@link ProductManager}.
+ * <br>
+ * Every write to the catalog produces a new snapshot with a higher
+ * {@link #getVersion() version}, so a report that holds on to a snapshot sees
+ * one consistent state no matter how many reviews arrive while it runs.
+ * Readers never block writers; an old version is simply reclaimed by the
+ * garbage collector once no reader holds a reference to it.
+ * <br>
+ * Consecutive versions share structure: products and reviews are held in
+ * {@link PersistentIntMap persistent tries} and each product's reviews in an
+ * append-only {@link ReviewList}, so a write copies O(log n) nodes instead of
+ * the whole catalog, and recording a review does not copy the reviews that
+ * came before it.
+ *
+ * @author User
+ */
+public final class CatalogSnapshot {
+
+    /**
+     * The empty catalog every {@link ProductManager} starts from.
+     */
+    static final CatalogSnapshot EMPTY = new CatalogSnapshot(0, PersistentIntMap.empty(), PersistentIntMap.empty());
+
+    /**
+     * The version of the catalog this snapshot represents
+     */
+    private final long version;
+
+    /**
+     * Products in this snapshot, keyed by product id
+     */
+    private final PersistentIntMap<Product> products;
+
+    /**
+     * Reviews in this snapshot, keyed by product id
+     */
+    private final PersistentIntMap<ReviewList> reviews;
+
+    /**
+     * Constructs a snapshot over immutable maps.
+     *
+     * @param version The version of the catalog
+     * @param products The products keyed by id
+     * @param reviews The reviews keyed by product id
+     */
+    private CatalogSnapshot(long version, PersistentIntMap<Product> products,
+            PersistentIntMap<ReviewList> reviews) {
+        this.version = version;
+        this.products = products;
+        this.reviews = reviews;
+    }
+
+    /**
+     * Gets the version of the catalog this snapshot represents. Versions
+     * increase by one with every write.
+     *
+     * @return the snapshot version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of products in this snapshot.
+     *
+     * @return the product count
+     */
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Finds a product by its id.
+     *
+     * @param id The unique identifier of the product
+     * @return the product, or {@code null} if it is not in this snapshot
+     */
+    public Product getProduct(int id) {
+        return products.get(id);
+    }
+
+    /**
+     * Gets all products in this snapshot.
+     *
+     * @return an unmodifiable collection of products
+     */
+    public Collection<Product> getProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    /**
+     * Streams all products in this snapshot. Use {@code stream().parallel()}
+     * to process a large catalog on all cores.
+     *
+     * @return a stream of products
+     */
+    public Stream<Product> stream() {
+        return products.stream();
+    }
+
+    /**
+     * Gets the reviews of a product in the order they were made.
+     *
+     * @param id The unique identifier of the product
+     * @return an unmodifiable list of reviews, empty if there are none
+     */
+    public List<Review> getReviews(int id) {
+        List<Review> productReviews = reviews.get(id);
+        return (productReviews == null) ? List.of() : productReviews;
+    }
+
+    /**
+     * Creates the next version of the catalog with the product added or
+     * replaced. Existing reviews of the product are kept.
+     *
+     * @param product The product to store
+     * @return a new snapshot
+     */
+    CatalogSnapshot withProduct(Product product) {
+        return new CatalogSnapshot(version + 1,
+                products.put(product.getId(), product),
+                reviews);
+    }
+
+    /**
+     * Creates the next version of the catalog with the product replaced and
+     * the new reviews appended to its existing reviews.
+     *
+     * @param product The reviewed product to store
+     * @param newReviews The reviews to append, in order
+     * @return a new snapshot
+     */
+    CatalogSnapshot withReviews(Product product, List<Review> newReviews) {
+        ReviewList current = reviews.get(product.getId());
+        ReviewList next = (current == null) ? ReviewList.of(newReviews) : current.appendAll(newReviews);
+        return new CatalogSnapshot(version + 1,
+                products.put(product.getId(), product),
+                reviews.put(product.getId(), next));
+    }
+
+    /**
+     * Creates the next version of the catalog without the given products and
+     * their reviews, as a single write.
+     *
+     * @param ids The unique identifiers of the products to remove
+     * @return a new snapshot, or this snapshot if none of the products is
+     * present
+     */
+    CatalogSnapshot without(Collection<Integer> ids) {
+        PersistentIntMap<Product> nextProducts = products;
+        PersistentIntMap<ReviewList> nextReviews = reviews;
+        for (int id : ids) {
+            nextProducts = nextProducts.remove(id);
+            nextReviews = nextReviews.remove(id);
+        }
+        return (nextProducts == products) ? this : new CatalogSnapshot(version + 1, nextProducts, nextReviews);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import static java.math.RoundingMode.HALF_UP;
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * {@code CurrencyConverter} converts catalog prices from the base currency of
+ * an {@link ExchangeRates} table into other currencies and caches the results.
+ * <br>
+ * Converted prices are rounded {@link java.math.RoundingMode#HALF_UP half up}
+ * to the minor unit of the target currency, the same rule
+ * {@link Product#getDiscount()} uses. Each currency has its own cache of
+ * converted prices keyed by product id. A cache is dropped as soon as the rate
+ * of its currency changes, and a cached price is recomputed if the product
+ * price it was converted from has changed, so cached prices are never stale.
+ * <br>
+ * The converter is a {@link CatalogListener}: the {@link ProductManager} it is
+ * set on registers it, and the cached prices of a product are evicted from
+ * every currency when the product leaves the catalog.
+ *
+ * @author User
+ */
+public class CurrencyConverter implements CatalogListener {
+
+    /**
+     * The rates prices are converted with
+     */
+    private final ExchangeRates rates;
+
+    /**
+     * Converted prices per target currency
+     */
+    private final Map<Currency, PriceCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Converted prices for one currency at one rate
+     */
+    private static final class PriceCache {
+
+        final BigDecimal rate;
+        final Map<Integer, Converted> prices = new ConcurrentHashMap<>();
+
+        PriceCache(BigDecimal rate) {
+            this.rate = rate;
+        }
+    }
+
+    /**
+     * A converted price and the base price it was converted from
+     */
+    private static final class Converted {
+
+        final BigDecimal source;
+        final BigDecimal price;
+
+        Converted(BigDecimal source, BigDecimal price) {
+            this.source = source;
+            this.price = price;
+        }
+    }
+
+    /**
+     * Constructs a converter over a rate table.
+     *
+     * @param rates The exchange rates to convert with
+     */
+    public CurrencyConverter(ExchangeRates rates) {
+        this.rates = rates;
+    }
+
+    /**
+     * Gets the rate table this converter uses.
+     *
+     * @return the exchange rates
+     */
+    public ExchangeRates getRates() {
+        return rates;
+    }
+
+    /**
+     * Evicts the cached prices of a product that left the catalog. Other
+     * changes are ignored; a changed price is converted again on its next
+     * lookup.
+     *
+     * @param previous The product before the change
+     * @param current The product after the change
+     */
+    @Override
+    public void productChanged(Product previous, Product current) {
+        if (previous != null && current == null) {
+            for (PriceCache cache : caches.values()) {
+                cache.prices.remove(previous.getId());
+            }
+        }
+    }
+
+    /**
+     * Gets the price of a product in another currency.
+     *
+     * @param product The product
+     * @param currency The target currency
+     * @return the converted price
+     * @throws IllegalArgumentException if there is no rate for the currency
+     */
+    public BigDecimal convert(Product product, Currency currency) {
+        if (currency.equals(rates.getBaseCurrency())) {
+            return product.getPrice();
+        }
+        return convert(product, currency, cacheFor(currency));
+    }
+
+    /**
+     * Converts the prices of every product in a snapshot into another currency
+     * in one parallel pass. Prices already in the cache are not converted
+     * again.
+     *
+     * @param snapshot The catalog version to convert
+     * @param currency The target currency
+     * @return the converted prices keyed by product id
+     * @throws IllegalArgumentException if there is no rate for the currency
+     */
+    public Map<Integer, BigDecimal> convertAll(CatalogSnapshot snapshot, Currency currency) {
+        if (currency.equals(rates.getBaseCurrency())) {
+            return snapshot.stream().collect(Collectors.toMap(Product::getId, Product::getPrice));
+        }
+        PriceCache cache = cacheFor(currency);
+        return snapshot.stream()
+                .parallel()
+                .collect(Collectors.toMap(Product::getId, p -> convert(p, currency, cache)));
+    }
+
+    /**
+     * Gets the cache of a currency, replacing it if the rate has changed.
+     *
+     * @param currency The target currency
+     * @return the cache for the current rate
+     */
+    private PriceCache cacheFor(Currency currency) {
+        BigDecimal rate = rates.getRate(currency);
+        if (rate == null) {
+            throw new IllegalArgumentException("No exchange rate for " + currency);
+        }
+        PriceCache cache = caches.get(currency);
+        if (cache == null || cache.rate != rate) {
+            cache = caches.compute(currency, (c, current) -> (current != null && current.rate == rate) ? current : new PriceCache(rate));
+        }
+        return cache;
+    }
+
+    private static BigDecimal convert(Product product, Currency currency, PriceCache cache) {
+        BigDecimal price = product.getPrice();
+        Converted converted = cache.prices.get(product.getId());
+        if (converted == null || converted.source.compareTo(price) != 0) {
+            converted = new Converted(price,
+                    price.multiply(cache.rate).setScale(Math.max(0, currency.getDefaultFractionDigits()), HALF_UP));
+            cache.prices.put(product.getId(), converted);
+        }
+        return converted.price;
+    }
+}
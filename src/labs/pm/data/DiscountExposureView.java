@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import static java.math.RoundingMode.HALF_UP;
+
+/**
+ * {@code DiscountExposureView} materializes the discount exposure of the
+ * catalog: the total discount that would be given if every product were sold
+ * once while its discount applies, at {@link Product#DISCOUNT_RATE}.
+ * <br>
+ * Discounts are rounded per product like {@link Product#getDiscount()}, so
+ * the total matches summing the individual discounts.
+ *
+ * @author User
+ */
+public class DiscountExposureView implements MaterializedView<BigDecimal> {
+
+    /**
+     * The total exposure, replaced on every delta
+     */
+    private volatile BigDecimal exposure = BigDecimal.ZERO.setScale(2);
+
+    /**
+     * Adds the potential discount of a product to the exposure.
+     *
+     * @param product The product to add
+     */
+    @Override
+    public synchronized void apply(Product product) {
+        exposure = exposure.add(potentialDiscount(product));
+    }
+
+    /**
+     * Removes the potential discount of a product from the exposure.
+     *
+     * @param product The product to remove
+     */
+    @Override
+    public synchronized void retract(Product product) {
+        exposure = exposure.subtract(potentialDiscount(product));
+    }
+
+    /**
+     * Applies both deltas of a change before publishing, so readers never see
+     * the state between the retraction and the application.
+     *
+     * @param previous The product before the change, or {@code null}
+     * @param current The product after the change, or {@code null}
+     */
+    @Override
+    public synchronized void productChanged(Product previous, Product current) {
+        BigDecimal next = exposure;
+        if (previous != null) {
+            next = next.subtract(potentialDiscount(previous));
+        }
+        if (current != null) {
+            next = next.add(potentialDiscount(current));
+        }
+        exposure = next;
+    }
+
+    /**
+     * Reads the total discount exposure.
+     *
+     * @return the exposure amount
+     */
+    @Override
+    public BigDecimal read() {
+        return exposure;
+    }
+
+    private static BigDecimal potentialDiscount(Product product) {
+        return product.getPrice().multiply(Product.DISCOUNT_RATE).setScale(2, HALF_UP);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import static java.math.RoundingMode.HALF_UP;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * {@code DiscountPolicy} is a set of {@link DiscountRule discount rules}
+ * compiled into decision tables.
+ * <br>
+ * Compiling resolves every rule once into the discount rate, in basis points,
+ * for each product category and rating, each minute of the day and each
+ * number of days left before a best-before date. Pricing a product is then a
+ * few array lookups instead of a walk over the rules. When several rules match
+ * a product, the highest rate wins; rates do not stack.
+ * <br>
+ * A policy is immutable and can price a whole catalog from many threads at
+ * once, see {@link ProductManager#reprice(DiscountPolicy)}.
+ *
+ * @author User
+ */
+public final class DiscountPolicy {
+
+    /**
+     * The rules hardcoded in {@link Food} and {@link Drink}: happy hour for
+     * drinks and best-before day for food, both at
+     * {@link Product#DISCOUNT_RATE}. Times are matched to the minute, so
+     * happy hour also covers 17:30 exactly, which {@link Drink#getDiscount()}
+     * leaves out.
+     */
+    public static final DiscountPolicy DEFAULT = compile(List.of(
+            DiscountRule.timeWindow(Drink.class, LocalTime.of(17, 30), LocalTime.of(18, 30), Product.DISCOUNT_RATE),
+            DiscountRule.expiry(0, Product.DISCOUNT_RATE)));
+
+    private static final int FOOD = 0;
+    private static final int DRINK = 1;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * Rate by category and rating ordinal, from category and rating rules
+     */
+    private final int[][] baseRates;
+
+    /**
+     * Rate by category and minute of the day, from time window rules
+     */
+    private final int[][] minuteRates;
+
+    /**
+     * Food rate by days left before the best-before date, from expiry rules
+     */
+    private final int[] expiryRates;
+
+    private DiscountPolicy(int[][] baseRates, int[][] minuteRates, int[] expiryRates) {
+        this.baseRates = baseRates;
+        this.minuteRates = minuteRates;
+        this.expiryRates = expiryRates;
+    }
+
+    /**
+     * Compiles a list of rules into a policy.
+     *
+     * @param rules The rules of the policy
+     * @return the compiled policy
+     */
+    public static DiscountPolicy compile(List<DiscountRule> rules) {
+        int maxDays = -1;
+        for (DiscountRule rule : rules) {
+            if (rule.getKind() == DiscountRule.Kind.EXPIRY) {
+                maxDays = Math.max(maxDays, rule.getDays());
+            }
+        }
+        int[][] baseRates = new int[2][Rating.values().length];
+        int[][] minuteRates = new int[2][MINUTES_PER_DAY];
+        int[] expiryRates = new int[maxDays + 1];
+        for (DiscountRule rule : rules) {
+            int rate = rule.getRate().setScale(4, HALF_UP).unscaledValue().intValue();
+            for (int type = FOOD; type <= DRINK; type++) {
+                if (!appliesTo(rule.getCategory(), type)) {
+                    continue;
+                }
+                switch (rule.getKind()) {
+                    case CATEGORY -> {
+                        for (int r = 0; r < baseRates[type].length; r++) {
+                            baseRates[type][r] = Math.max(baseRates[type][r], rate);
+                        }
+                    }
+                    case RATING -> {
+                        for (int r = rule.getRating().ordinal(); r < baseRates[type].length; r++) {
+                            baseRates[type][r] = Math.max(baseRates[type][r], rate);
+                        }
+                    }
+                    case TIME_WINDOW -> {
+                        int start = rule.getFrom().toSecondOfDay() / 60;
+                        int length = Math.floorMod(rule.getTo().toSecondOfDay() / 60 - start, MINUTES_PER_DAY);
+                        for (int m = 0; m < length; m++) {
+                            int minute = (start + m) % MINUTES_PER_DAY;
+                            minuteRates[type][minute] = Math.max(minuteRates[type][minute], rate);
+                        }
+                    }
+                    case EXPIRY -> {
+                        for (int d = 0; d <= rule.getDays(); d++) {
+                            expiryRates[d] = Math.max(expiryRates[d], rate);
+                        }
+                    }
+                }
+            }
+        }
+        return new DiscountPolicy(baseRates, minuteRates, expiryRates);
+    }
+
+    /**
+     * Gets the discount rate of a product at a given time.
+     *
+     * @param product The product to price
+     * @param at The date and time to price the product at
+     * @return the discount rate in basis points (1/100 of a percent)
+     */
+    public int getRate(Product product, LocalDateTime at) {
+        int type = (product instanceof Food) ? FOOD : DRINK;
+        int rate = Math.max(baseRates[type][product.getRating().ordinal()],
+                minuteRates[type][at.getHour() * 60 + at.getMinute()]);
+        if (type == FOOD && expiryRates.length > 0) {
+            long daysLeft = ChronoUnit.DAYS.between(at.toLocalDate(), product.getBestBefore());
+            if (daysLeft >= 0 && daysLeft < expiryRates.length) {
+                rate = Math.max(rate, expiryRates[(int) daysLeft]);
+            }
+        }
+        return rate;
+    }
+
+    /**
+     * Calculates the discount of a product at a given time, rounded the same
+     * way as {@link Product#getDiscount()}.
+     *
+     * @param product The product to price
+     * @param at The date and time to price the product at
+     * @return the discount amount
+     */
+    public BigDecimal getDiscount(Product product, LocalDateTime at) {
+        int rate = getRate(product, at);
+        return (rate == 0) ? BigDecimal.ZERO
+                : product.getPrice().multiply(BigDecimal.valueOf(rate, 4)).setScale(2, HALF_UP);
+    }
+
+    /**
+     * Calculates the discount of a product today at the current time.
+     *
+     * @param product The product to price
+     * @return the discount amount
+     */
+    public BigDecimal getDiscount(Product product) {
+        return getDiscount(product, LocalDateTime.now());
+    }
+
+    private static boolean appliesTo(Class<? extends Product> category, int type) {
+        return category == Product.class
+                || (type == FOOD && category == Food.class)
+                || (type == DRINK && category == Drink.class);
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * {@code DiscountRule} describes one discount rule as plain data. Rules are
+ * not evaluated directly; a list of rules is compiled into a
+ * {@link DiscountPolicy}.
+ * <br>
+ * A rule applies to a category of products ({@link Food}, {@link Drink} or
+ * all products) and grants a discount rate when its condition holds:
+ * <ul>
+ * <li>{@code CATEGORY} always,</li>
+ * <li>{@code TIME_WINDOW} from the start minute up to, but not including, the
+ * end minute of the day; windows may wrap past midnight, and a window that
+ * starts and ends in the same minute is rejected rather than read as the
+ * whole day, which is what a {@code CATEGORY} rule is for,</li>
+ * <li>{@code EXPIRY} when a Food product is at most the given number of days
+ * from its best-before date,</li>
+ * <li>{@code RATING} when the product rating is at least the given rating.</li>
+ * </ul>
+ * Rules can also be written as text, one per line, for example:
+ * <pre>
+ * category  food  0.05
+ * time      drink 17:30 18:30 0.1
+ * expiry    0     0.1
+ * rating    all   FOUR_STAR 0.02
+ * </pre>
+ *
+ * @author User
+ */
+public final class DiscountRule {
+
+    /**
+     * The kinds of condition a rule can have
+     */
+    public enum Kind {
+        /**
+         * Applies to every product in the category
+         */
+        CATEGORY,
+        /**
+         * Applies during a window of the day
+         */
+        TIME_WINDOW,
+        /**
+         * Applies to Food close to its best-before date
+         */
+        EXPIRY,
+        /**
+         * Applies to products rated at least a given rating
+         */
+        RATING
+    }
+
+    private final Kind kind;
+    private final Class<? extends Product> category;
+    private final LocalTime from;
+    private final LocalTime to;
+    private final int days;
+    private final Rating rating;
+    private final BigDecimal rate;
+
+    private DiscountRule(Kind kind, Class<? extends Product> category, LocalTime from, LocalTime to,
+            int days, Rating rating, BigDecimal rate) {
+        if (rate.signum() < 0 || rate.compareTo(BigDecimal.ONE) > 0) {
+            throw new IllegalArgumentException("Discount rate must be between 0 and 1: " + rate);
+        }
+        this.kind = kind;
+        this.category = category;
+        this.from = from;
+        this.to = to;
+        this.days = days;
+        this.rating = rating;
+        this.rate = rate;
+    }
+
+    /**
+     * Creates a rule that discounts every product in a category.
+     *
+     * @param category {@code Food.class}, {@code Drink.class} or
+     * {@code Product.class} for all products
+     * @param rate The discount rate, for example 0.1 for 10%
+     * @return the rule
+     */
+    public static DiscountRule category(Class<? extends Product> category, BigDecimal rate) {
+        return new DiscountRule(Kind.CATEGORY, category, null, null, 0, null, rate);
+    }
+
+    /**
+     * Creates a rule that discounts a category during a window of the day.
+     * Times are taken to the minute.
+     *
+     * @param category {@code Food.class}, {@code Drink.class} or
+     * {@code Product.class} for all products
+     * @param from The first minute of the window
+     * @param to The minute the window ends, exclusive; earlier than
+     * {@code from} for a window that wraps past midnight
+     * @param rate The discount rate
+     * @return the rule
+     * @throws IllegalArgumentException if the window starts and ends in the
+     * same minute
+     */
+    public static DiscountRule timeWindow(Class<? extends Product> category, LocalTime from, LocalTime to, BigDecimal rate) {
+        if (from.truncatedTo(ChronoUnit.MINUTES).equals(to.truncatedTo(ChronoUnit.MINUTES))) {
+            throw new IllegalArgumentException("Time window must not be empty: " + from + " to " + to);
+        }
+        return new DiscountRule(Kind.TIME_WINDOW, category, from, to, 0, null, rate);
+    }
+
+    /**
+     * Creates a rule that discounts Food close to its best-before date.
+     *
+     * @param days The number of days before the best-before date the discount
+     * starts; 0 means on the best-before date only
+     * @param rate The discount rate
+     * @return the rule
+     */
+    public static DiscountRule expiry(int days, BigDecimal rate) {
+        if (days < 0) {
+            throw new IllegalArgumentException("Days must not be negative: " + days);
+        }
+        return new DiscountRule(Kind.EXPIRY, Food.class, null, null, days, null, rate);
+    }
+
+    /**
+     * Creates a rule that discounts products of a category with at least the
+     * given rating.
+     *
+     * @param category {@code Food.class}, {@code Drink.class} or
+     * {@code Product.class} for all products
+     * @param rating The lowest rating that gets the discount
+     * @param rate The discount rate
+     * @return the rule
+     */
+    public static DiscountRule rating(Class<? extends Product> category, Rating rating, BigDecimal rate) {
+        return new DiscountRule(Kind.RATING, category, null, null, 0, rating, rate);
+    }
+
+    /**
+     * Parses a rule from its text form.
+     *
+     * @param text The rule text, see the class description
+     * @return the rule
+     * @throws IllegalArgumentException if the text is not a valid rule
+     */
+    public static DiscountRule parse(String text) {
+        String[] f = text.trim().split("\\s+");
+        try {
+            return switch (f[0].toLowerCase(Locale.ROOT)) {
+                case "category" ->
+                    category(parseCategory(f[1]), new BigDecimal(f[2]));
+                case "time" ->
+                    timeWindow(parseCategory(f[1]), LocalTime.parse(f[2]), LocalTime.parse(f[3]), new BigDecimal(f[4]));
+                case "expiry" ->
+                    expiry(Integer.parseInt(f[1]), new BigDecimal(f[2]));
+                case "rating" ->
+                    rating(parseCategory(f[1]), Rating.valueOf(f[2]), new BigDecimal(f[3]));
+                default ->
+                    throw new IllegalArgumentException("Unknown rule kind: " + f[0]);
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid discount rule: " + text, e);
+        }
+    }
+
+    private static Class<? extends Product> parseCategory(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "food" ->
+                Food.class;
+            case "drink" ->
+                Drink.class;
+            case "all" ->
+                Product.class;
+            default ->
+                throw new IllegalArgumentException("Unknown product category: " + name);
+        };
+    }
+
+    /**
+     * Gets the kind of condition of this rule.
+     *
+     * @return the rule kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the product category this rule applies to.
+     *
+     * @return {@code Food.class}, {@code Drink.class} or {@code Product.class}
+     */
+    public Class<? extends Product> getCategory() {
+        return category;
+    }
+
+    /**
+     * Gets the first minute of a time window rule.
+     *
+     * @return the window start, or {@code null} for other kinds
+     */
+    public LocalTime getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the exclusive end minute of a time window rule.
+     *
+     * @return the window end, or {@code null} for other kinds
+     */
+    public LocalTime getTo() {
+        return to;
+    }
+
+    /**
+     * Gets the number of days before the best-before date an expiry rule
+     * starts.
+     *
+     * @return the number of days
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * Gets the lowest rating a rating rule applies to.
+     *
+     * @return the rating, or {@code null} for other kinds
+     */
+    public Rating getRating() {
+        return rating;
+    }
+
+    /**
+     * Gets the discount rate this rule grants.
+     *
+     * @return the rate, between 0 and 1
+     */
+    public BigDecimal getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns a string representation of this rule.
+     *
+     * @return the rule kind, category and rate
+     */
+    @Override
+    public String toString() {
+        return kind + " " + category.getSimpleName() + " " + rate;
+    }
+}
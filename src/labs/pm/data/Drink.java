@@ -71,4 +71,16 @@ public class Drink extends Product {
         return new Drink(getId(), getName(), getPrice(), newRating);
     }
 
+    /**
+     * Creates a copy of this Drink product with a new price, leaving this
+     * instance unchanged.
+     *
+     * @param newPrice The price of the copy
+     * @return A new Drink instance with all the same properties but the new price
+     */
+    @Override
+    Product withPrice(BigDecimal newPrice) {
+        return new Drink(getId(), getName(), newPrice, getRating());
+    }
+
 }
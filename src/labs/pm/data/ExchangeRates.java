@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * {@code ExchangeRates} is a table of currency exchange rates relative to the
+ * base currency catalog prices are kept in.
+ * <br>
+ * Rates are loaded from a properties file with a {@code base} entry naming the
+ * base currency and one entry per currency code giving how many units of that
+ * currency one unit of the base currency buys. The table can be updated while
+ * in use; every update publishes a new immutable set of rates, which is how
+ * {@link CurrencyConverter} notices that its cached prices are stale.
+ *
+ * @author User
+ */
+public class ExchangeRates {
+
+    /**
+     * The classpath resource with the default rates
+     */
+    private static final String DEFAULT_RATES = "rates.properties";
+
+    /**
+     * The currency catalog prices are kept in
+     */
+    private final Currency baseCurrency;
+
+    /**
+     * The current rates, replaced as a whole on every update
+     */
+    private volatile Map<Currency, BigDecimal> rates;
+
+    /**
+     * Constructs a rate table.
+     *
+     * @param baseCurrency The currency catalog prices are kept in
+     * @param rates The rates keyed by currency
+     * @throws IllegalArgumentException if a rate is not positive
+     */
+    public ExchangeRates(Currency baseCurrency, Map<Currency, BigDecimal> rates) {
+        this.baseCurrency = baseCurrency;
+        rates.values().forEach(ExchangeRates::requirePositive);
+        Map<Currency, BigDecimal> initial = new HashMap<>(rates);
+        initial.put(baseCurrency, BigDecimal.ONE);
+        this.rates = Map.copyOf(initial);
+    }
+
+    /**
+     * Loads the rate table shipped with the application.
+     *
+     * @return the default rates
+     * @throws IOException if the rates cannot be read
+     */
+    public static ExchangeRates loadDefault() throws IOException {
+        try (InputStream in = ExchangeRates.class.getResourceAsStream(DEFAULT_RATES)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + DEFAULT_RATES);
+            }
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return fromProperties(properties);
+        }
+    }
+
+    /**
+     * Loads a rate table from a properties file.
+     *
+     * @param file The rates file
+     * @return the rates
+     * @throws IOException if the file cannot be read
+     */
+    public static ExchangeRates load(Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Properties properties = new Properties();
+            properties.load(in);
+            return fromProperties(properties);
+        }
+    }
+
+    private static ExchangeRates fromProperties(Properties properties) {
+        String base = properties.getProperty("base");
+        if (base == null) {
+            throw new IllegalArgumentException("Rates file has no base currency");
+        }
+        Map<Currency, BigDecimal> rates = new HashMap<>();
+        for (String code : properties.stringPropertyNames()) {
+            if (!code.equals("base")) {
+                rates.put(Currency.getInstance(code), new BigDecimal(properties.getProperty(code).trim()));
+            }
+        }
+        return new ExchangeRates(Currency.getInstance(base.trim()), rates);
+    }
+
+    /**
+     * Gets the currency catalog prices are kept in.
+     *
+     * @return the base currency
+     */
+    public Currency getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Gets the rate of a currency.
+     *
+     * @param currency The currency
+     * @return the units of the currency one unit of the base currency buys, or
+     * {@code null} if the rate is unknown
+     */
+    public BigDecimal getRate(Currency currency) {
+        return rates.get(currency);
+    }
+
+    /**
+     * Updates the rate of a currency.
+     *
+     * @param currency The currency; must not be the base currency
+     * @param rate The new rate
+     * @throws IllegalArgumentException if the currency is the base currency
+     * or the rate is not positive
+     */
+    public synchronized void update(Currency currency, BigDecimal rate) {
+        if (currency.equals(baseCurrency)) {
+            throw new IllegalArgumentException("The base currency rate is always 1");
+        }
+        requirePositive(rate);
+        Map<Currency, BigDecimal> next = new HashMap<>(rates);
+        next.put(currency, rate);
+        rates = Map.copyOf(next);
+    }
+
+    /**
+     * Rejects a rate that would turn prices into zero or negative amounts.
+     *
+     * @param rate The rate to check
+     */
+    private static void requirePositive(BigDecimal rate) {
+        if (rate.signum() <= 0) {
+            throw new IllegalArgumentException("Exchange rate must be positive: " + rate);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * {@code ExpiringFoodView} materializes the number of {@link Food} products
+ * that reach their best-before date within a given number of days, including
+ * products already past it that have not been archived yet.
+ * <br>
+ * The view keeps a count per best-before date and a running total up to the
+ * current horizon. The total is recounted once when the date changes; every
+ * other read and delta takes constant time.
+ *
+ * @author User
+ */
+public class ExpiringFoodView implements MaterializedView<Integer> {
+
+    /**
+     * The number of days ahead a product counts as expiring
+     */
+    private final int days;
+
+    /**
+     * The clock that defines today
+     */
+    private final Clock clock;
+
+    /**
+     * Food product counts by best-before date
+     */
+    private final NavigableMap<LocalDate, Integer> counts = new TreeMap<>();
+
+    /**
+     * The last date counted as expiring, or null before the first read
+     */
+    private LocalDate horizon;
+
+    /**
+     * The number of products with a best-before date up to the horizon
+     */
+    private int expiring;
+
+    /**
+     * Constructs a view of Food expiring within the given number of days of
+     * today, by the system clock.
+     *
+     * @param days The number of days ahead; 0 counts products expiring today
+     */
+    public ExpiringFoodView(int days) {
+        this(days, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a view of Food expiring within the given number of days of
+     * today, by the given clock.
+     *
+     * @param days The number of days ahead; 0 counts products expiring today
+     * @param clock The clock that defines today
+     */
+    public ExpiringFoodView(int days, Clock clock) {
+        this.days = days;
+        this.clock = clock;
+    }
+
+    /**
+     * Counts a Food product under its best-before date.
+     *
+     * @param product The product to add
+     */
+    @Override
+    public synchronized void apply(Product product) {
+        update(product, 1);
+    }
+
+    /**
+     * Uncounts a Food product from its best-before date.
+     *
+     * @param product The product to remove
+     */
+    @Override
+    public synchronized void retract(Product product) {
+        update(product, -1);
+    }
+
+    /**
+     * Applies both deltas of a change atomically, so readers never see the
+     * state between the retraction and the application.
+     *
+     * @param previous The product before the change, or {@code null}
+     * @param current The product after the change, or {@code null}
+     */
+    @Override
+    public synchronized void productChanged(Product previous, Product current) {
+        MaterializedView.super.productChanged(previous, current);
+    }
+
+    /**
+     * Reads the number of Food products expiring by the horizon.
+     *
+     * @return the expiring product count
+     */
+    @Override
+    public synchronized Integer read() {
+        LocalDate current = LocalDate.now(clock).plusDays(days);
+        if (!current.equals(horizon)) {
+            horizon = current;
+            expiring = 0;
+            for (int count : counts.headMap(horizon, true).values()) {
+                expiring += count;
+            }
+        }
+        return expiring;
+    }
+
+    private void update(Product product, int delta) {
+        if (product instanceof Food food) {
+            LocalDate bestBefore = food.getBestBefore();
+            counts.merge(bestBefore, delta, (a, b) -> (a + b == 0) ? null : a + b);
+            if (horizon != null && !bestBefore.isAfter(horizon)) {
+                expiring += delta;
+            }
+        }
+    }
+}
@@ -92,4 +92,16 @@ public class Food extends Product {
         return new Food(getId(), getName(), getPrice(), newRating, bestBefore);
     }
 
+    /**
+     * Creates a copy of this Food product with a new price, leaving this
+     * instance unchanged.
+     *
+     * @param newPrice The price of the copy
+     * @return A new Food instance with all the same properties but the new price
+     */
+    @Override
+    Product withPrice(BigDecimal newPrice) {
+        return new Food(getId(), getName(), newPrice, getRating(), bestBefore);
+    }
+
 }
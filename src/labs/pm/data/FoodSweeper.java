@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code FoodSweeper} manages the end of life of {@link Food} products in a
+ * {@link ProductManager} catalog.
+ * <br>
+ * Food products are kept in day buckets ordered by their best-before date. On
+ * every sweep, products in today's bucket are reported as being on their last,
+ * discounted day and products in earlier buckets are moved to a
+ * {@link ProductArchive} in one catalog write. A sweep only visits the
+ * buckets that are due, so its cost depends on the number of products
+ * expiring, not on the catalog size.
+ *
+ * @author User
+ */
+public final class FoodSweeper implements CatalogListener, AutoCloseable {
+
+    /**
+     * Reports background sweeps that fail
+     */
+    private static final System.Logger LOGGER = System.getLogger(FoodSweeper.class.getName());
+
+    /**
+     * The catalog being swept
+     */
+    private final ProductManager productManager;
+
+    /**
+     * Cold storage for expired products
+     */
+    private final ProductArchive archive;
+
+    /**
+     * Ids of live Food products bucketed by best-before date
+     */
+    private final NavigableMap<LocalDate, Set<Integer>> buckets = new TreeMap<>();
+
+    /**
+     * Ids of the products on their last day as of the latest sweep
+     */
+    private volatile List<Integer> lastDay = List.of();
+
+    /**
+     * Runs scheduled sweeps, or {@code null} until {@link #start} is called
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a sweeper for the given catalog and registers it for catalog
+     * changes.
+     *
+     * @param productManager The catalog to sweep
+     * @param archive The cold storage for expired products
+     */
+    public FoodSweeper(ProductManager productManager, ProductArchive archive) {
+        this.productManager = productManager;
+        this.archive = archive;
+        productManager.addCatalogListener(this);
+    }
+
+    /**
+     * Keeps the best-before buckets in step with the catalog.
+     *
+     * @param previous The product before the change, or {@code null}
+     * @param current The product after the change, or {@code null}
+     */
+    @Override
+    public synchronized void productChanged(Product previous, Product current) {
+        if (previous instanceof Food food) {
+            Set<Integer> ids = buckets.get(food.getBestBefore());
+            if (ids != null) {
+                ids.remove(food.getId());
+                if (ids.isEmpty()) {
+                    buckets.remove(food.getBestBefore());
+                }
+            }
+        }
+        if (current instanceof Food food) {
+            buckets.computeIfAbsent(food.getBestBefore(), d -> new HashSet<>()).add(food.getId());
+        }
+    }
+
+    /**
+     * Sweeps the catalog as of the given date. Food products past their
+     * best-before date are archived and products on their best-before date are
+     * recorded as being on their last day.
+     *
+     * @param today The date to sweep as of
+     * @return the number of products archived
+     */
+    public int sweep(LocalDate today) {
+        List<Integer> expired = new ArrayList<>();
+        List<Integer> dueToday;
+        synchronized (this) {
+            Map.Entry<LocalDate, Set<Integer>> due;
+            while ((due = buckets.firstEntry()) != null && due.getKey().isBefore(today)) {
+                expired.addAll(buckets.pollFirstEntry().getValue());
+            }
+            Set<Integer> todays = buckets.get(today);
+            dueToday = (todays == null) ? List.of() : List.copyOf(todays);
+        }
+        // archive outside our own lock: archiving calls back into productChanged.
+        // An id may have been re-created with a later date since it was
+        // polled, so expiry is checked again under the catalog write lock.
+        int archived;
+        try {
+            archived = productManager.archiveProducts(expired,
+                    p -> p instanceof Food food && food.getBestBefore().isBefore(today),
+                    archive).size();
+        } catch (RuntimeException e) {
+            // keep the polled ids due so the next sweep tries them again
+            synchronized (this) {
+                buckets.computeIfAbsent(today.minusDays(1), d -> new HashSet<>()).addAll(expired);
+            }
+            throw e;
+        }
+        lastDay = dueToday;
+        return archived;
+    }
+
+    /**
+     * Gets the ids of the products found on their last, discounted day by the
+     * latest sweep.
+     *
+     * @return an unmodifiable list of product ids
+     */
+    public List<Integer> getLastDayProducts() {
+        return lastDay;
+    }
+
+    /**
+     * Gets the number of live Food products the sweeper is tracking.
+     *
+     * @return the tracked product count
+     */
+    public synchronized int size() {
+        int size = 0;
+        for (Set<Integer> ids : buckets.values()) {
+            size += ids.size();
+        }
+        return size;
+    }
+
+    /**
+     * Starts sweeping in the background. The first sweep runs immediately and
+     * later sweeps run once every period. A sweep that fails is reported and
+     * the next one runs as planned.
+     *
+     * @param period The time between sweeps
+     */
+    public synchronized void start(Duration period) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Sweeper already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "food-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::scheduledSweep,
+                0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs one background sweep. Exceptions are reported here rather than
+     * thrown, since the scheduler cancels all later runs of a task that
+     * throws.
+     */
+    private void scheduledSweep() {
+        try {
+            sweep(LocalDate.now());
+        } catch (RuntimeException e) {
+            LOGGER.log(System.Logger.Level.WARNING, "Food sweep failed", e);
+        }
+    }
+
+    /**
+     * Stops background sweeping and unregisters from the catalog.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        productManager.removeCatalogListener(this);
+    }
+}
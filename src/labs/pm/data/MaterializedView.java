@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+/**
+ * A dashboard value kept up to date incrementally as the catalog of a
+ * {@link ProductManager} changes.
+ * <br>
+ * A view never rescans the catalog. Instead, every catalog change is turned
+ * into deltas: the old version of a product is retracted and the new version
+ * applied. Views are registered with
+ * {@link ProductManager#registerView(MaterializedView)}, which replays the
+ * existing catalog and then delivers deltas in catalog order under the write
+ * lock, so a view stays correct under concurrent writes. Reading a view takes
+ * constant time.
+ *
+ * @param <T> The type of the value the view materializes
+ * @author User
+ */
+public interface MaterializedView<T> extends CatalogListener {
+
+    /**
+     * Adds the contribution of a product to the view.
+     *
+     * @param product The product that entered the catalog or its new version
+     */
+    void apply(Product product);
+
+    /**
+     * Removes the contribution of a product from the view.
+     *
+     * @param product The product that left the catalog or its old version
+     */
+    void retract(Product product);
+
+    /**
+     * Reads the current value of the view.
+     *
+     * @return the materialized value
+     */
+    T read();
+
+    /**
+     * Turns a catalog change into a retraction of the previous version and an
+     * application of the current one.
+     *
+     * @param previous The product before the change, or {@code null}
+     * @param current The product after the change, or {@code null}
+     */
+    @Override
+    public default void productChanged(Product previous, Product current) {
+        if (previous != null) {
+            retract(previous);
+        }
+        if (current != null) {
+            apply(current);
+        }
+    }
+}
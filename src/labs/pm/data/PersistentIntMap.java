@@ -0,0 +1,456 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * {@code PersistentIntMap} is an immutable map from primitive {@code int}
+ * keys to values that shares structure between versions.
+ * <br>
+ * The map is a hash array mapped trie in the compressed (CHAMP) layout: each
+ * node consumes five bits of the mixed key and keeps two bitmaps, one for the
+ * entries stored inline and one for child nodes, so a node only holds arrays
+ * as long as its occupied slots. {@link #put put} and {@link #remove remove}
+ * copy the nodes on the path to the key and reuse every other node, so a
+ * write costs O(log n) time and memory however large the map is, and the
+ * previous version stays valid for readers that still hold it.
+ * <br>
+ * Keys are spread with {@link Product#mix(int)}, which is a bijection on
+ * {@code int}, so two different keys never share a full hash and the trie
+ * needs no collision nodes. It is at most seven levels deep.
+ *
+ * @param <V> The type of the values
+ * @author User
+ */
+final class PersistentIntMap<V> {
+
+    /**
+     * Bits of the hash consumed per trie level
+     */
+    private static final int BITS = 5;
+
+    /**
+     * The deepest a trie over 32 bit hashes can get
+     */
+    private static final int MAX_DEPTH = 7;
+
+    /**
+     * The shared empty map
+     */
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(Node.EMPTY, 0);
+
+    /**
+     * The root of the trie
+     */
+    private final Node root;
+
+    /**
+     * The number of mappings
+     */
+    private final int size;
+
+    /**
+     * Constructs a map over a trie that will not be modified any more.
+     *
+     * @param root The root node
+     * @param size The number of mappings under the root
+     */
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Gets the empty map.
+     *
+     * @param <V> The type of the values
+     * @return the empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    /**
+     * Gets the number of mappings.
+     *
+     * @return the map size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finds the value mapped to a key.
+     *
+     * @param key The key
+     * @return the value, or {@code null} if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        int hash = Product.mix(key);
+        Node node = root;
+        for (int shift = 0;; shift += BITS) {
+            int bit = bit(hash, shift);
+            if ((node.dataMap & bit) != 0) {
+                int index = node.dataIndex(bit);
+                return node.keys[index] == key ? (V) node.values[index] : null;
+            }
+            if ((node.nodeMap & bit) == 0) {
+                return null;
+            }
+            node = node.nodes[node.nodeIndex(bit)];
+        }
+    }
+
+    /**
+     * Checks whether a key is mapped.
+     *
+     * @param key The key
+     * @return {@code true} if the map holds a value for the key
+     */
+    boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Creates a version of this map with a key mapped to a value. This map
+     * is not changed.
+     *
+     * @param key The key
+     * @param value The value, not {@code null}
+     * @return the new map, or this map if the key is already mapped to the
+     * same value
+     */
+    PersistentIntMap<V> put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        Node next = root.put(key, Product.mix(key), value, 0);
+        if (next == root) {
+            return this;
+        }
+        return new PersistentIntMap<>(next, containsKey(key) ? size : size + 1);
+    }
+
+    /**
+     * Creates a version of this map without a key. This map is not changed.
+     *
+     * @param key The key
+     * @return the new map, or this map if the key is not mapped
+     */
+    PersistentIntMap<V> remove(int key) {
+        Node next = root.remove(key, Product.mix(key), 0);
+        if (next == root) {
+            return this;
+        }
+        if (next.isSingleEntry()) {
+            // a collapsed child keeps the entry under the bits of a deeper level
+            next = Node.EMPTY.put(next.keys[0], Product.mix(next.keys[0]), next.values[0], 0);
+        }
+        return new PersistentIntMap<>(next, size - 1);
+    }
+
+    /**
+     * Gets a read-only view of the values, in no particular order.
+     *
+     * @return the values
+     */
+    Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Streams the values. The stream splits by subtree, so
+     * {@code stream().parallel()} spreads a large map over all cores.
+     *
+     * @return a stream of values
+     */
+    @SuppressWarnings("unchecked")
+    Stream<V> stream() {
+        return (Stream<V>) root.stream();
+    }
+
+    /**
+     * Selects the bitmap bit for a hash at a trie level.
+     *
+     * @param hash The mixed key
+     * @param shift The number of hash bits consumed above this level
+     * @return a single bit
+     */
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & ((1 << BITS) - 1));
+    }
+
+    /**
+     * A trie node. Entries and child nodes are ordered by their bit, and
+     * their arrays are never modified after the node is constructed.
+     */
+    private static final class Node {
+
+        /**
+         * The node with no entries, used as the root of an empty map
+         */
+        static final Node EMPTY = new Node(0, 0, new int[0], new Object[0], new Node[0]);
+
+        /**
+         * Bits of the entries stored inline
+         */
+        final int dataMap;
+
+        /**
+         * Bits of the child nodes
+         */
+        final int nodeMap;
+
+        /**
+         * Keys of the inline entries
+         */
+        final int[] keys;
+
+        /**
+         * Values of the inline entries
+         */
+        final Object[] values;
+
+        /**
+         * Child nodes
+         */
+        final Node[] nodes;
+
+        Node(int dataMap, int nodeMap, int[] keys, Object[] values, Node[] nodes) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.keys = keys;
+            this.values = values;
+            this.nodes = nodes;
+        }
+
+        int dataIndex(int bit) {
+            return Integer.bitCount(dataMap & (bit - 1));
+        }
+
+        int nodeIndex(int bit) {
+            return Integer.bitCount(nodeMap & (bit - 1));
+        }
+
+        /**
+         * Checks whether this node holds exactly one entry and nothing
+         * else, in which case its parent inlines the entry instead.
+         */
+        boolean isSingleEntry() {
+            return nodeMap == 0 && keys.length == 1;
+        }
+
+        Node put(int key, int hash, Object value, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                int existing = keys[index];
+                if (existing == key) {
+                    if (values[index] == value) {
+                        return this;
+                    }
+                    Object[] nextValues = values.clone();
+                    nextValues[index] = value;
+                    return new Node(dataMap, nodeMap, keys, nextValues, nodes);
+                }
+                Node child = merge(existing, Product.mix(existing), values[index],
+                        key, hash, value, shift + BITS);
+                return withEntryReplacedByNode(bit, index, child);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node child = nodes[index];
+                Node nextChild = child.put(key, hash, value, shift + BITS);
+                if (nextChild == child) {
+                    return this;
+                }
+                Node[] nextNodes = nodes.clone();
+                nextNodes[index] = nextChild;
+                return new Node(dataMap, nodeMap, keys, values, nextNodes);
+            }
+            int index = dataIndex(bit);
+            return new Node(dataMap | bit, nodeMap,
+                    insert(keys, index, key), insert(values, index, value), nodes);
+        }
+
+        Node remove(int key, int hash, int shift) {
+            int bit = bit(hash, shift);
+            if ((dataMap & bit) != 0) {
+                int index = dataIndex(bit);
+                if (keys[index] != key) {
+                    return this;
+                }
+                if (keys.length == 1 && nodeMap == 0) {
+                    return EMPTY;
+                }
+                return new Node(dataMap ^ bit, nodeMap,
+                        delete(keys, index), delete(values, index), nodes);
+            }
+            if ((nodeMap & bit) != 0) {
+                int index = nodeIndex(bit);
+                Node child = nodes[index];
+                Node nextChild = child.remove(key, hash, shift + BITS);
+                if (nextChild == child) {
+                    return this;
+                }
+                if (nextChild.isSingleEntry()) {
+                    if (keys.length == 0 && nodes.length == 1) {
+                        // this node would only pass the entry through
+                        return nextChild;
+                    }
+                    int dataIndex = dataIndex(bit);
+                    return new Node(dataMap | bit, nodeMap ^ bit,
+                            insert(keys, dataIndex, nextChild.keys[0]),
+                            insert(values, dataIndex, nextChild.values[0]),
+                            delete(nodes, index));
+                }
+                Node[] nextNodes = nodes.clone();
+                nextNodes[index] = nextChild;
+                return new Node(dataMap, nodeMap, keys, values, nextNodes);
+            }
+            return this;
+        }
+
+        Node withEntryReplacedByNode(int bit, int dataIndex, Node child) {
+            int nodeIndex = Integer.bitCount(nodeMap & (bit - 1));
+            return new Node(dataMap ^ bit, nodeMap | bit,
+                    delete(keys, dataIndex), delete(values, dataIndex),
+                    insert(nodes, nodeIndex, child));
+        }
+
+        Stream<Object> stream() {
+            Stream<Object> entries = Arrays.stream(values);
+            if (nodes.length == 0) {
+                return entries;
+            }
+            return Stream.concat(entries, Arrays.stream(nodes).flatMap(Node::stream));
+        }
+
+        /**
+         * Builds the subtree holding two entries whose hashes agree on all
+         * bits above {@code shift}.
+         */
+        static Node merge(int key1, int hash1, Object value1,
+                int key2, int hash2, Object value2, int shift) {
+            int bit1 = bit(hash1, shift);
+            int bit2 = bit(hash2, shift);
+            if (bit1 == bit2) {
+                Node child = merge(key1, hash1, value1, key2, hash2, value2, shift + BITS);
+                return new Node(0, bit1, new int[0], new Object[0], new Node[]{child});
+            }
+            return (Integer.compareUnsigned(bit1, bit2) < 0)
+                    ? new Node(bit1 | bit2, 0, new int[]{key1, key2}, new Object[]{value1, value2}, new Node[0])
+                    : new Node(bit1 | bit2, 0, new int[]{key2, key1}, new Object[]{value2, value1}, new Node[0]);
+        }
+
+        static int[] insert(int[] array, int index, int element) {
+            int[] result = new int[array.length + 1];
+            System.arraycopy(array, 0, result, 0, index);
+            result[index] = element;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        static <T> T[] insert(T[] array, int index, T element) {
+            T[] result = Arrays.copyOf(array, array.length + 1);
+            result[index] = element;
+            System.arraycopy(array, index, result, index + 1, array.length - index);
+            return result;
+        }
+
+        static int[] delete(int[] array, int index) {
+            int[] result = new int[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, result.length - index);
+            return result;
+        }
+
+        static <T> T[] delete(T[] array, int index) {
+            T[] result = Arrays.copyOf(array, array.length - 1);
+            System.arraycopy(array, index + 1, result, index, result.length - index);
+            return result;
+        }
+    }
+
+    /**
+     * Walks the trie depth first without recursion, entries of a node
+     * before its children.
+     */
+    private final class ValueIterator implements Iterator<V> {
+
+        private final Node[] path = new Node[MAX_DEPTH + 1];
+
+        /**
+         * The next position in each node on the path, counting the entries
+         * first and then the children
+         */
+        private final int[] positions = new int[MAX_DEPTH + 1];
+
+        private int depth;
+
+        private Object next;
+
+        ValueIterator() {
+            path[0] = root;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && depth >= 0) {
+                Node node = path[depth];
+                int position = positions[depth]++;
+                if (position < node.values.length) {
+                    next = node.values[position];
+                } else if (position - node.values.length < node.nodes.length) {
+                    path[++depth] = node.nodes[position - node.values.length];
+                    positions[depth] = 0;
+                } else {
+                    depth--;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object value = next;
+            next = null;
+            return (V) value;
+        }
+    }
+}
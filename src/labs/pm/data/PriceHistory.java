@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import static java.math.RoundingMode.HALF_UP;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * {@code PriceHistory} is the compressed time series of the prices of one
+ * product.
+ * <br>
+ * Each change is stored as the difference to the previous change: the time
+ * difference in milliseconds and the price difference in cents, both as
+ * zig-zag varints. A typical change therefore takes three to six bytes. Every
+ * {@value #CHECKPOINT_INTERVAL} changes a checkpoint records the absolute time,
+ * price and byte offset, so a lookup binary-searches the checkpoints and then
+ * decodes at most one block of changes.
+ * <br>
+ * Prices are kept in cents, rounded like {@link Product#getDiscount()}.
+ * Changes must be recorded in time order; a timestamp earlier than the last
+ * one is treated as happening at the same time as the last one.
+ *
+ * @author User
+ */
+public class PriceHistory {
+
+    /**
+     * The number of changes between checkpoints
+     */
+    static final int CHECKPOINT_INTERVAL = 32;
+
+    private byte[] data = new byte[16];
+    private int length;
+    private int count;
+    private long lastTime;
+    private long lastPrice;
+    private long[] checkpointTimes = new long[1];
+    private long[] checkpointPrices = new long[1];
+    private int[] checkpointOffsets = new int[1];
+
+    /**
+     * Records a price change.
+     *
+     * @param time The time of the change
+     * @param price The new price
+     */
+    public synchronized void record(Instant time, BigDecimal price) {
+        long millis = Math.max(time.toEpochMilli(), (count == 0) ? Long.MIN_VALUE : lastTime);
+        long cents = price.setScale(2, HALF_UP).unscaledValue().longValueExact();
+        if (count % CHECKPOINT_INTERVAL == 0) {
+            int checkpoint = count / CHECKPOINT_INTERVAL;
+            if (checkpoint == checkpointTimes.length) {
+                checkpointTimes = Arrays.copyOf(checkpointTimes, checkpoint * 2);
+                checkpointPrices = Arrays.copyOf(checkpointPrices, checkpoint * 2);
+                checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpoint * 2);
+            }
+            checkpointTimes[checkpoint] = millis;
+            checkpointPrices[checkpoint] = cents;
+            checkpointOffsets[checkpoint] = length;
+        } else {
+            writeVarLong(millis - lastTime);
+            writeVarLong(cents - lastPrice);
+        }
+        lastTime = millis;
+        lastPrice = cents;
+        count++;
+    }
+
+    /**
+     * Gets the price in effect at a given time.
+     *
+     * @param time The time to look up
+     * @return the price, or {@code null} if the time is before the first
+     * recorded price
+     */
+    public synchronized BigDecimal priceAt(Instant time) {
+        long cents = centsAt(time.toEpochMilli());
+        return (cents == Long.MIN_VALUE) ? null : BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Gets all price changes in a time range.
+     *
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @return the prices keyed by the time they took effect, in time order
+     */
+    public synchronized NavigableMap<Instant, BigDecimal> changes(Instant from, Instant to) {
+        NavigableMap<Instant, BigDecimal> changes = new TreeMap<>();
+        long start = from.toEpochMilli();
+        long end = to.toEpochMilli();
+        int checkpoint = Math.max(0, findCheckpoint(start));
+        int[] offset = {0};
+        for (int c = checkpoint; c * CHECKPOINT_INTERVAL < count; c++) {
+            long t = checkpointTimes[c];
+            long p = checkpointPrices[c];
+            offset[0] = checkpointOffsets[c];
+            int blockEnd = Math.min(count, (c + 1) * CHECKPOINT_INTERVAL);
+            for (int i = c * CHECKPOINT_INTERVAL; i < blockEnd; i++) {
+                if (i > c * CHECKPOINT_INTERVAL) {
+                    t += readVarLong(offset);
+                    p += readVarLong(offset);
+                }
+                if (t >= end) {
+                    return changes;
+                }
+                if (t >= start) {
+                    changes.put(Instant.ofEpochMilli(t), BigDecimal.valueOf(p, 2));
+                }
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Downsamples the history into fixed-size time buckets, keeping the price
+     * in effect at the end of each bucket. Runs in one pass over the changes.
+     * A bucket ends before the start of the next one, and no bucket ends
+     * after {@code to}, so a partial last bucket closes with the price in
+     * effect just before {@code to}.
+     *
+     * @param from The start of the first bucket in epoch milliseconds
+     * @param to The end of the last bucket in epoch milliseconds, exclusive
+     * @param bucketMillis The bucket size in milliseconds
+     * @param buckets The number of buckets
+     * @return the closing price of each bucket in cents, or
+     * {@code Long.MIN_VALUE} for buckets before the first recorded price
+     */
+    synchronized long[] downsample(long from, long to, long bucketMillis, int buckets) {
+        long[] closes = new long[buckets];
+        long price = Long.MIN_VALUE;
+        long t = 0;
+        long p = 0;
+        boolean decoded = false;
+        int[] offset = {0};
+        int i = 0;
+        for (int b = 0; b < buckets; b++) {
+            long bucketEnd = Math.min(from + (b + 1) * bucketMillis, to);
+            while (i < count) {
+                if (!decoded) {
+                    if (i % CHECKPOINT_INTERVAL == 0) {
+                        int c = i / CHECKPOINT_INTERVAL;
+                        t = checkpointTimes[c];
+                        p = checkpointPrices[c];
+                        offset[0] = checkpointOffsets[c];
+                    } else {
+                        t += readVarLong(offset);
+                        p += readVarLong(offset);
+                    }
+                    decoded = true;
+                }
+                if (t >= bucketEnd) {
+                    break;
+                }
+                price = p;
+                decoded = false;
+                i++;
+            }
+            closes[b] = price;
+        }
+        return closes;
+    }
+
+    /**
+     * Gets the number of recorded changes.
+     *
+     * @return the change count
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Gets the approximate number of bytes used by the encoded changes.
+     *
+     * @return the encoded size in bytes
+     */
+    public synchronized int encodedSize() {
+        return length + (count + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL * 20;
+    }
+
+    /**
+     * Finds the price in cents at a time in epoch milliseconds.
+     *
+     * @param millis The time to look up
+     * @return the price in cents, or {@code Long.MIN_VALUE} if there is none
+     */
+    private long centsAt(long millis) {
+        int c = findCheckpoint(millis);
+        if (c < 0) {
+            return Long.MIN_VALUE;
+        }
+        long t = checkpointTimes[c];
+        long p = checkpointPrices[c];
+        int[] offset = {checkpointOffsets[c]};
+        int blockEnd = Math.min(count, (c + 1) * CHECKPOINT_INTERVAL);
+        for (int i = c * CHECKPOINT_INTERVAL + 1; i < blockEnd; i++) {
+            t += readVarLong(offset);
+            if (t > millis) {
+                break;
+            }
+            p += readVarLong(offset);
+        }
+        return p;
+    }
+
+    /**
+     * Finds the last checkpoint at or before a time.
+     *
+     * @param millis The time in epoch milliseconds
+     * @return the checkpoint index, or -1 if the time is before all changes
+     */
+    private int findCheckpoint(long millis) {
+        int low = 0;
+        int high = (count + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (checkpointTimes[mid] <= millis) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private void writeVarLong(long value) {
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            data[length++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        data[length++] = (byte) zigzag;
+    }
+
+    private long readVarLong(int[] offset) {
+        long zigzag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = data[offset[0]++];
+            zigzag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
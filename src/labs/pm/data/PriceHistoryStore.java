@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code PriceHistoryStore} keeps a {@link PriceHistory} for every product of
+ * a catalog.
+ * <br>
+ * Register it with {@link ProductManager#addCatalogListener} and it records the
+ * initial price of every product and every later price change made through
+ * {@link ProductManager#changePrice(int, BigDecimal)}. Histories are kept for
+ * products that leave the catalog, so past prices stay available.
+ *
+ * @author User
+ */
+public class PriceHistoryStore implements CatalogListener {
+
+    /**
+     * Price histories keyed by product id
+     */
+    private final Map<Integer, PriceHistory> histories = new ConcurrentHashMap<>();
+
+    /**
+     * The clock price changes are timestamped with; its zone defines dates
+     */
+    private final Clock clock;
+
+    /**
+     * Constructs a store that timestamps changes with the system clock.
+     */
+    public PriceHistoryStore() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a store that timestamps changes with the given clock.
+     *
+     * @param clock The clock to timestamp changes with
+     */
+    public PriceHistoryStore(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Records the price of a new product, or the new price of a changed one.
+     *
+     * @param previous The product before the change, or {@code null}
+     * @param current The product after the change, or {@code null}
+     */
+    @Override
+    public void productChanged(Product previous, Product current) {
+        if (current != null && (previous == null || previous.getPrice().compareTo(current.getPrice()) != 0)) {
+            histories.computeIfAbsent(current.getId(), id -> new PriceHistory())
+                    .record(clock.instant(), current.getPrice());
+        }
+    }
+
+    /**
+     * Gets the price history of a product.
+     *
+     * @param id The unique identifier of the product
+     * @return the history, or {@code null} if no price was ever recorded
+     */
+    public PriceHistory getHistory(int id) {
+        return histories.get(id);
+    }
+
+    /**
+     * Gets the price of a product at a given time.
+     *
+     * @param id The unique identifier of the product
+     * @param time The time to look up
+     * @return the price, or {@code null} if the product had no price then
+     */
+    public BigDecimal priceAt(int id, Instant time) {
+        PriceHistory history = histories.get(id);
+        return (history == null) ? null : history.priceAt(time);
+    }
+
+    /**
+     * Gets the price of a product at the end of a given date, in the zone of
+     * this store's clock.
+     *
+     * @param id The unique identifier of the product
+     * @param date The date to look up
+     * @return the closing price of the day, or {@code null} if the product had
+     * no price then
+     */
+    public BigDecimal priceOn(int id, LocalDate date) {
+        return priceAt(id, date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().minusMillis(1));
+    }
+
+    /**
+     * Gets all price changes of a product in a time range.
+     *
+     * @param id The unique identifier of the product
+     * @param from The start of the range, inclusive
+     * @param to The end of the range, exclusive
+     * @return the prices keyed by the time they took effect
+     */
+    public NavigableMap<Instant, BigDecimal> changes(int id, Instant from, Instant to) {
+        PriceHistory history = histories.get(id);
+        return (history == null) ? new TreeMap<>() : history.changes(from, to);
+    }
+
+    /**
+     * Downsamples the price history of every product into fixed-size time
+     * buckets, keeping the price in effect at the end of each bucket.
+     *
+     * @param from The start of the first bucket
+     * @param to The end of the last bucket, exclusive; a partial last bucket
+     * is included and closes at {@code to}, not at its full length
+     * @param bucket The bucket size
+     * @return the closing prices of each product keyed by product id; an entry
+     * is {@code null} for buckets before the first recorded price
+     * @throws IllegalArgumentException if {@code to} is before {@code from},
+     * the bucket is shorter than a millisecond, or the range holds too many
+     * buckets
+     */
+    public Map<Integer, BigDecimal[]> rollup(Instant from, Instant to, Duration bucket) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Rollup ends before it starts: " + from + " to " + to);
+        }
+        long start = from.toEpochMilli();
+        long bucketMillis = bucket.toMillis();
+        if (bucketMillis <= 0) {
+            throw new IllegalArgumentException("Rollup bucket must be at least 1 ms: " + bucket);
+        }
+        long range = to.toEpochMilli() - start;
+        long bucketCount = range / bucketMillis + ((range % bucketMillis == 0) ? 0 : 1);
+        if (bucketCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many rollup buckets: " + bucketCount);
+        }
+        int buckets = (int) bucketCount;
+        Map<Integer, BigDecimal[]> rollup = new HashMap<>();
+        histories.forEach((id, history) -> {
+            long[] closes = history.downsample(start, to.toEpochMilli(), bucketMillis, buckets);
+            BigDecimal[] prices = new BigDecimal[buckets];
+            for (int b = 0; b < buckets; b++) {
+                prices[b] = (closes[b] == Long.MIN_VALUE) ? null : BigDecimal.valueOf(closes[b], 2);
+            }
+            rollup.put(id, prices);
+        });
+        return rollup;
+    }
+}
@@ -107,6 +107,16 @@ public abstract class Product implements Rateable<Product> {
 //    {
 //        return new Product(getId(), getName(), getPrice(), rating);
 //    }
+    /**
+     * Creates a copy of this product with a new price. Used by the catalog so
+     * that a price change publishes a new instance instead of modifying one
+     * that readers of older snapshots may still hold.
+     *
+     * @param newPrice The price of the copy
+     * @return A new Product instance of the same type with the new price
+     */
+    abstract Product withPrice(BigDecimal newPrice);
+
     /**
      * Gets the rating of this product.
      *
@@ -175,7 +185,12 @@ public abstract class Product implements Rateable<Product> {
      * Sets the price for this product.
      *
      * @param price the product price to set
+     * @deprecated Products in a catalog are shared by every snapshot that
+     * holds them, so changing one in place rewrites the past for readers of
+     * older snapshots and bypasses the price history. Use
+     * {@link ProductManager#changePrice(int, BigDecimal)} instead.
      */
+    @Deprecated
     public void setPrice(final BigDecimal price) {
 //        price = BigDecimal.ONE; This overrides whatever value is set to 1. Making it a constant price of 1
         this.price = price;
@@ -193,26 +208,45 @@ public abstract class Product implements Rateable<Product> {
 
     /**
      * Generates a hash code for this product. The hash code is based on the
-     * product's ID. This implementation is consistent with the equals method,
-     * ensuring that equal objects produce the same hash code.
+     * product's type and ID, which together form the identity key of a
+     * product. The bits are mixed so that consecutive IDs spread evenly over
+     * the buckets of large hashed collections. This implementation is
+     * consistent with the equals method, ensuring that equal objects produce
+     * the same hash code.
      *
      * @return The hash code value for this product
      */
     @Override
     public int hashCode() {
-        int hash = 7;
-        hash = 41 * hash + this.id;
-        return hash;
+        return mix(id * 0x9E3779B9 + getClass().getName().hashCode());
+    }
+
+    /**
+     * Scrambles the bits of an int so that every input bit affects every
+     * output bit (the finalizer of MurmurHash3).
+     *
+     * @param h The value to mix
+     * @return the mixed value
+     */
+    static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
     }
 
     /**
      * Compares this product with another object for equality. Products are
-     * considered equal if they have the same ID and the same name. This method
-     * follows the general contract for Object.equals: - It is reflexive: an
-     * object is equal to itself - It is symmetric: if a.equals(b) then
-     * b.equals(a) - It is transitive: if a.equals(b) and b.equals(c) then
-     * a.equals(c) - It is consistent: repeated calls with unchanged objects
-     * return the same result - It returns false when comparing with null
+     * considered equal if they are of the same type and have the same ID and
+     * the same name, so a Food and a Drink never collide even when they share
+     * an ID. This method follows the general contract for Object.equals: - It
+     * is reflexive: an object is equal to itself - It is symmetric: if
+     * a.equals(b) then b.equals(a) - It is transitive: if a.equals(b) and
+     * b.equals(c) then a.equals(c) - It is consistent: repeated calls with
+     * unchanged objects return the same result - It returns false when
+     * comparing with null
      *
      * @param obj The object to compare with this product
      * @return true if the objects are equal, false otherwise
@@ -222,9 +256,8 @@ public abstract class Product implements Rateable<Product> {
         if (this == obj) {
             return true;
         }
-//        if (obj != null && getClass() == obj.getClass()) {
-        if (obj instanceof Product product) {
-            final Product other = product;
+        if (obj != null && getClass() == obj.getClass()) {
+            final Product other = (Product) obj;
             return this.id == other.id && Objects.equals(this.name, other.name);
         }
         return false;
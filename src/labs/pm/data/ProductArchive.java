@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@code ProductArchive} is the cold storage tier for products that have been
+ * taken out of the live catalog, such as expired {@link Food}.
+ * <br>
+ * Archived products and their reviews are kept out of every catalog scan and
+ * report so the hot catalog stays small, but remain available for lookups and
+ * audits.
+ * <br>
+ * Products are archived in batches and looked up far more often, so the
+ * archived products are held in a {@link ProductIdMap} that is copied, added
+ * to and published once per batch; lookups read the published map without
+ * locking.
+ *
+ * @author User
+ */
+public class ProductArchive {
+
+    /**
+     * Archived products keyed by product id, replaced as a whole and never
+     * modified once published
+     */
+    private volatile ProductIdMap products = new ProductIdMap();
+
+    /**
+     * Reviews of archived products keyed by product id
+     */
+    private final Map<Integer, List<Review>> reviews = new ConcurrentHashMap<>();
+
+    /**
+     * Stores products and their reviews in the archive, replacing any earlier
+     * archived products with the same ids. The reviews are stored before the
+     * products are published, so a product found in the archive always has
+     * its reviews.
+     *
+     * @param archived The products to archive
+     * @param source The catalog snapshot to take the reviews from
+     */
+    synchronized void store(Collection<Product> archived, CatalogSnapshot source) {
+        ProductIdMap next = new ProductIdMap(products);
+        for (Product product : archived) {
+            reviews.put(product.getId(), List.copyOf(source.getReviews(product.getId())));
+            next.put(product.getId(), product);
+        }
+        products = next;
+    }
+
+    /**
+     * Finds an archived product by its id.
+     *
+     * @param id The unique identifier of the product
+     * @return the archived product, or {@code null} if it was never archived
+     */
+    public Product getProduct(int id) {
+        return products.get(id);
+    }
+
+    /**
+     * Gets the reviews an archived product had when it was archived.
+     *
+     * @param id The unique identifier of the product
+     * @return the archived reviews, empty if there are none
+     */
+    public List<Review> getReviews(int id) {
+        return reviews.getOrDefault(id, List.of());
+    }
+
+    /**
+     * Gets all archived products. Products archived after the call are not
+     * included.
+     *
+     * @return an unmodifiable view of the products archived so far
+     */
+    public Collection<Product> getProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    /**
+     * Gets the number of archived products.
+     *
+     * @return the archive size
+     */
+    public int size() {
+        return products.size();
+    }
+}
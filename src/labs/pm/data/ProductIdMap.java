@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@code ProductIdMap} maps primitive {@code int} product ids to products.
+ * <br>
+ * Ids and products are kept in two parallel arrays using open addressing with
+ * linear probing, so unlike a {@code HashMap<Integer, Product>} there is no
+ * boxed key and no entry object per mapping, and a lookup touches at most a
+ * few adjacent array slots. An empty slot is marked by a {@code null} product,
+ * so every int, including 0, is a valid id.
+ * <br>
+ * This class is not thread-safe. Mutate a private copy and publish it once it
+ * is complete.
+ *
+ * @author User
+ */
+public final class ProductIdMap {
+
+    /**
+     * Maximum fill ratio before the tables are doubled
+     */
+    private static final float LOAD_FACTOR = 0.6f;
+
+    /**
+     * Product ids, valid where the matching product slot is not null
+     */
+    private int[] keys;
+
+    /**
+     * Products, or null for an empty slot
+     */
+    private Product[] values;
+
+    /**
+     * The number of mappings
+     */
+    private int size;
+
+    /**
+     * Constructs an empty map.
+     */
+    public ProductIdMap() {
+        this(16);
+    }
+
+    /**
+     * Constructs an empty map sized to hold the expected number of products
+     * without resizing.
+     *
+     * @param expectedSize The expected number of products
+     */
+    public ProductIdMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        keys = new int[capacity];
+        values = new Product[capacity];
+    }
+
+    /**
+     * Constructs a copy of another map.
+     *
+     * @param other The map to copy
+     */
+    public ProductIdMap(ProductIdMap other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        size = other.size;
+    }
+
+    /**
+     * Gets the number of mappings.
+     *
+     * @return the map size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the product with the given id.
+     *
+     * @param id The product id
+     * @return the product, or {@code null} if there is none
+     */
+    public Product get(int id) {
+        int mask = keys.length - 1;
+        for (int i = Product.mix(id) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether there is a product with the given id.
+     *
+     * @param id The product id
+     * @return true if the id is mapped
+     */
+    public boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    /**
+     * Maps an id to a product, replacing any earlier mapping.
+     *
+     * @param id The product id
+     * @param product The product, must not be {@code null}
+     * @return the previously mapped product, or {@code null} if there was none
+     */
+    public Product put(int id, Product product) {
+        if (product == null) {
+            throw new NullPointerException("product");
+        }
+        int mask = keys.length - 1;
+        int i = Product.mix(id) & mask;
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == id) {
+                Product previous = values[i];
+                values[i] = product;
+                return previous;
+            }
+        }
+        keys[i] = id;
+        values[i] = product;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping of an id. Later entries of the probe run are shifted
+     * back so lookups never need tombstones.
+     *
+     * @param id The product id
+     * @return the removed product, or {@code null} if there was none
+     */
+    public Product remove(int id) {
+        int mask = keys.length - 1;
+        int i = Product.mix(id) & mask;
+        while (values[i] != null && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        Product removed = values[i];
+        if (removed == null) {
+            return null;
+        }
+        int gap = i;
+        for (int j = (gap + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = Product.mix(keys[j]) & mask;
+            // move the entry into the gap unless its home lies cyclically in (gap, j]
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Gets a live view of the mapped products, in no particular order.
+     *
+     * @return an unmodifiable collection of products
+     */
+    public Collection<Product> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Product> iterator() {
+                return new Iterator<>() {
+                    private int next = advance(0);
+
+                    private int advance(int from) {
+                        while (from < values.length && values[from] == null) {
+                            from++;
+                        }
+                        return from;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Product next() {
+                        if (next >= values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Product product = values[next];
+                        next = advance(next + 1);
+                        return product;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Rehashes all mappings into tables of the given capacity.
+     *
+     * @param capacity The new capacity, a power of two
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Product[] oldValues = values;
+        keys = new int[capacity];
+        values = new Product[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] != null) {
+                int i = Product.mix(oldKeys[j]) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+}
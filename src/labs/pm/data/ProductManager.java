@@ -17,13 +17,23 @@
 package labs.pm.data;
 
 import java.math.BigDecimal;
-import java.text.MessageFormat;
 import java.text.NumberFormat;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * A class that manages the creation of various product types through factory
@@ -34,6 +44,11 @@ import java.util.ResourceBundle;
  */
 public class ProductManager {
 
+    /**
+     * Reports listeners that fail while being notified
+     */
+    private static final System.Logger LOGGER = System.getLogger(ProductManager.class.getName());
+
     /**
      * The current product being managed
      */
@@ -44,6 +59,24 @@ public class ProductManager {
      */
     private Review review;
 
+    /**
+     * The latest published version of the catalog. Readers take this reference
+     * once and work against it, so they never block writers and never see a
+     * half-applied write.
+     */
+    private volatile CatalogSnapshot catalog = CatalogSnapshot.EMPTY;
+
+    /**
+     * Lock serializing writers while they build and publish the next catalog
+     * version
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Components notified of every catalog change
+     */
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+
     /**
      * The locale used for internationalization and formatting. Determines the
      * language, country, and formatting conventions.
@@ -69,16 +102,69 @@ public class ProductManager {
     private NumberFormat moneyFormat;
 
     /**
-     * Constructs a ProductManager with the specified locale. Initializes all
-     * formatters and resource bundles for the given locale.
+     * Renderer for product reports built from the templates and formatters
+     * above
+     */
+    private ReportRenderer renderer;
+
+    /**
+     * Whether the resource bundle and formatters have been loaded. Written
+     * after them, so a thread that sees true also sees the loaded formatters.
+     */
+    private volatile boolean formatsLoaded;
+
+    /**
+     * Converts prices into the currency of the locale for reports, or
+     * {@code null} to show prices unconverted
+     */
+    private volatile CurrencyConverter currencyConverter;
+
+    /**
+     * Constructs a ProductManager with the specified locale. The formatters
+     * and resource bundles for the locale are loaded lazily by the first
+     * report, so creating a ProductManager stays cheap for short-lived
+     * processes.
      *
      * @param locale The locale to use for internationalization
      */
     public ProductManager(Locale locale) {
         this.locale = locale;
-        resourceBundle = ResourceBundle.getBundle("labs.pm.data.resources", locale);
-        dateFormat = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).localizedBy(locale);
-        moneyFormat = NumberFormat.getCurrencyInstance(locale);
+    }
+
+    /**
+     * Sets the converter used to show prices in the currency of this
+     * manager's locale. Catalog prices are in the base currency of the
+     * converter's rates; without a converter, reports only change the
+     * currency symbol. The converter is registered as a catalog listener, so
+     * it can evict the prices of products leaving the catalog, and the
+     * converter it replaces is unregistered.
+     *
+     * @param currencyConverter The converter to use, or {@code null} to show
+     * prices unconverted
+     * @throws IllegalArgumentException if the converter has no rate for the
+     * currency of this manager's locale
+     */
+    public void setCurrencyConverter(CurrencyConverter currencyConverter) {
+        if (currencyConverter != null) {
+            loadFormats();
+            ExchangeRates rates = currencyConverter.getRates();
+            Currency currency = moneyFormat.getCurrency();
+            // rates can be updated but never removed, so this holds for good
+            if (!currency.equals(rates.getBaseCurrency()) && rates.getRate(currency) == null) {
+                throw new IllegalArgumentException("No exchange rate for " + currency
+                        + " used by locale " + locale.toLanguageTag());
+            }
+        }
+        synchronized (writeLock) {
+            if (this.currencyConverter != null) {
+                listeners.remove(this.currencyConverter);
+            }
+            if (currencyConverter != null) {
+                // a replay would only report additions, which the converter ignores
+                listeners.add(currencyConverter);
+            }
+            this.currencyConverter = currencyConverter;
+        }
     }
 
     /**
@@ -93,6 +179,7 @@ public class ProductManager {
      */
     public Product createProduct(int id, String name, BigDecimal price, Rating rating, LocalDate bestBefore) {
         product = new Food(id, name, price, rating, bestBefore);
+        publish(product);
         return product;
     }
 
@@ -107,23 +194,297 @@ public class ProductManager {
      */
     public Product createProduct(int id, String name, BigDecimal price, Rating rating) {
         product = new Drink(id, name, price, rating);
+        publish(product);
         return product;
     }
 
     /**
      * Creates a review for a product and applies the rating to the product.
      * This method creates a new Review instance and updates the product's
-     * rating.
+     * rating. The reviewed product and its review are published to the catalog
+     * as one new version.
+     * <br>
+     * Only the id of the given product is used: the review is applied to the
+     * catalog's current version of the product, so a stale copy held by the
+     * caller cannot undo later changes such as a new price.
      *
      * @param product The product to be reviewed
      * @param rating The rating to assign to the product
      * @param comments The review comments
-     * @return The updated product with the new rating applied
+     * @return The updated product with the new rating applied, or {@code null}
+     * if there is no such product in the catalog
      */
     public Product reviewProduct(Product product, Rating rating, String comments) {
-        this.review = new Review(rating, comments);
-        this.product = product.applyRating(rating);
-        return this.product;
+        return reviewProduct(product.getId(), List.of(new Review(rating, comments)));
+    }
+
+    /**
+     * Creates a review for a product in the catalog identified by its id.
+     *
+     * @param id The unique identifier of the product to be reviewed
+     * @param rating The rating to assign to the product
+     * @param comments The review comments
+     * @return The updated product with the new rating applied, or {@code null}
+     * if there is no such product in the catalog
+     */
+    public Product reviewProduct(int id, Rating rating, String comments) {
+        return reviewProduct(id, List.of(new Review(rating, comments)));
+    }
+
+    /**
+     * Applies a batch of reviews to a product in the catalog identified by its
+     * id. The result is the same as reviewing the product once per review, in
+     * order, but the rating is recomputed once and the catalog is published
+     * once for the whole batch.
+     *
+     * @param id The unique identifier of the product to be reviewed
+     * @param reviews The reviews to apply, in order; must not be empty
+     * @return The updated product with the rating of the last review applied,
+     * or {@code null} if there is no such product in the catalog
+     */
+    public Product reviewProduct(int id, List<Review> reviews) {
+        synchronized (writeLock) {
+            Product current = catalog.getProduct(id);
+            if (current == null) {
+                return null;
+            }
+            Product reviewed = current.applyRating(reviews.get(reviews.size() - 1).getRating());
+            publishReviews(current, reviewed, reviews);
+            return reviewed;
+        }
+    }
+
+    /**
+     * Changes the price of a product in the catalog. The product is replaced
+     * by a copy with the new price, so readers of older snapshots keep seeing
+     * the old price.
+     *
+     * @param id The unique identifier of the product
+     * @param price The new price
+     * @return the product with the new price, or {@code null} if there is no
+     * such product in the catalog
+     */
+    public Product changePrice(int id, BigDecimal price) {
+        synchronized (writeLock) {
+            Product current = catalog.getProduct(id);
+            if (current == null) {
+                return null;
+            }
+            Product repriced = current.withPrice(price);
+            catalog = catalog.withProduct(repriced);
+            fireProductChanged(current, repriced);
+            return repriced;
+        }
+    }
+
+    /**
+     * Finds a product in the latest version of the catalog.
+     *
+     * @param id The unique identifier of the product
+     * @return the product, or {@code null} if there is no such product
+     */
+    public Product findProduct(int id) {
+        return catalog.getProduct(id);
+    }
+
+    /**
+     * Takes a point-in-time snapshot of the catalog. Reports and exports
+     * should read everything they need from one snapshot so they see a
+     * consistent state while other threads keep reviewing products.
+     *
+     * @return the latest published version of the catalog
+     */
+    public CatalogSnapshot snapshot() {
+        return catalog;
+    }
+
+    /**
+     * Prices the whole catalog under a discount policy in one parallel pass.
+     * Every product is priced against the same snapshot and the same moment,
+     * so the result is consistent even while the catalog keeps changing.
+     *
+     * @param policy The compiled discount policy to apply
+     * @return the discount of each product, keyed by product id
+     */
+    public Map<Integer, BigDecimal> reprice(DiscountPolicy policy) {
+        LocalDateTime now = LocalDateTime.now();
+        return catalog.stream()
+                .parallel()
+                .collect(Collectors.toMap(Product::getId, p -> policy.getDiscount(p, now)));
+    }
+
+    /**
+     * Moves a product and its reviews out of the catalog into cold storage.
+     * Both happen under the catalog write lock, so no review can slip in
+     * between archiving and removal.
+     *
+     * @param id The unique identifier of the product
+     * @param archive The archive to move the product to
+     * @return the archived product, or {@code null} if there is no such product
+     */
+    public Product archiveProduct(int id, ProductArchive archive) {
+        List<Product> archived = archiveProducts(List.of(id), archive);
+        return archived.isEmpty() ? null : archived.get(0);
+    }
+
+    /**
+     * Moves products and their reviews out of the catalog into cold storage
+     * and publishes a single new snapshot for all of them.
+     *
+     * @param ids The unique identifiers of the products
+     * @param archive The archive to move the products to
+     * @return the archived products; ids not in the catalog are skipped
+     */
+    public List<Product> archiveProducts(Collection<Integer> ids, ProductArchive archive) {
+        return archiveProducts(ids, p -> true, archive);
+    }
+
+    /**
+     * Moves the products that still meet a condition, together with their
+     * reviews, out of the catalog into cold storage and publishes a single
+     * new snapshot for all of them. The condition is tested under the catalog
+     * write lock, so a product replaced since the caller picked its id is
+     * judged by its current state.
+     *
+     * @param ids The unique identifiers of the products
+     * @param condition The test a product must pass to be archived
+     * @param archive The archive to move the products to
+     * @return the archived products; ids not in the catalog or failing the
+     * condition are skipped
+     */
+    public List<Product> archiveProducts(Collection<Integer> ids,
+            Predicate<? super Product> condition,
+            ProductArchive archive) {
+        synchronized (writeLock) {
+            CatalogSnapshot current = catalog;
+            List<Product> archived = new ArrayList<>();
+            Set<Integer> archivedIds = new HashSet<>();
+            for (int id : ids) {
+                Product product = current.getProduct(id);
+                if (product != null && !archivedIds.contains(id) && condition.test(product)) {
+                    archived.add(product);
+                    archivedIds.add(id);
+                }
+            }
+            if (!archived.isEmpty()) {
+                archive.store(archived, current);
+                catalog = current.without(archivedIds);
+                for (Product product : archived) {
+                    fireProductChanged(product, null);
+                }
+            }
+            return archived;
+        }
+    }
+
+    /**
+     * Registers a listener for catalog changes. The listener is first told
+     * about every product already in the catalog, as if each had just been
+     * added, followed by that product's reviews in the order they were made,
+     * so it starts from the same state as the catalog.
+     *
+     * @param listener The listener to register
+     */
+    public void addCatalogListener(CatalogListener listener) {
+        synchronized (writeLock) {
+            CatalogSnapshot current = catalog;
+            for (Product p : current.getProducts()) {
+                listener.productChanged(null, p);
+                for (Review r : current.getReviews(p.getId())) {
+                    listener.productReviewed(p, r);
+                }
+            }
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Registers a materialized view. The view is first built from the
+     * products already in the catalog and then kept up to date with every
+     * catalog change.
+     *
+     * @param <V> The type of the view
+     * @param view The view to register
+     * @return the registered view
+     */
+    public <V extends MaterializedView<?>> V registerView(V view) {
+        addCatalogListener(view);
+        return view;
+    }
+
+    /**
+     * Unregisters a listener for catalog changes.
+     *
+     * @param listener The listener to unregister
+     */
+    public void removeCatalogListener(CatalogListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Publishes a new or replaced product as the next catalog version.
+     *
+     * @param newProduct The product to store
+     */
+    private void publish(Product newProduct) {
+        synchronized (writeLock) {
+            Product previous = catalog.getProduct(newProduct.getId());
+            catalog = catalog.withProduct(newProduct);
+            fireProductChanged(previous, newProduct);
+        }
+    }
+
+    /**
+     * Publishes a reviewed product and its new reviews as the next catalog
+     * version. Must be called while holding the write lock.
+     *
+     * @param previous The product before the reviews, or {@code null}
+     * @param reviewed The product after the reviews
+     * @param newReviews The new reviews, in order
+     */
+    private void publishReviews(Product previous, Product reviewed, List<Review> newReviews) {
+        catalog = catalog.withReviews(reviewed, newReviews);
+        this.review = newReviews.get(newReviews.size() - 1);
+        this.product = reviewed;
+        fireProductChanged(previous, reviewed);
+        for (Review r : newReviews) {
+            for (CatalogListener listener : listeners) {
+                try {
+                    listener.productReviewed(reviewed, r);
+                } catch (RuntimeException e) {
+                    listenerFailed(listener, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies all listeners of a catalog change. Must be called while holding
+     * the write lock so listeners see changes in catalog order. The change is
+     * already published, so a listener that throws is reported and the
+     * remaining listeners are still notified.
+     *
+     * @param previous The product before the change, or {@code null}
+     * @param current The product after the change, or {@code null}
+     */
+    private void fireProductChanged(Product previous, Product current) {
+        for (CatalogListener listener : listeners) {
+            try {
+                listener.productChanged(previous, current);
+            } catch (RuntimeException e) {
+                listenerFailed(listener, e);
+            }
+        }
+    }
+
+    /**
+     * Reports a listener that threw while being notified of a change.
+     *
+     * @param listener The failed listener
+     * @param e The exception it threw
+     */
+    private static void listenerFailed(CatalogListener listener, RuntimeException e) {
+        LOGGER.log(System.Logger.Level.WARNING, () -> "Catalog listener " + listener + " failed", e);
     }
 
     /**
@@ -137,28 +498,109 @@ public class ProductManager {
      * ProductManager, and formatting follows the locale-specific conventions.
      */
     public void printProductReport() {
-        StringBuilder txt = new StringBuilder();
-        txt.append(
-                MessageFormat.format(
-                        resourceBundle.getString("product"),
-                        product.getName(),
-                        moneyFormat.format(product.getPrice()),
-                        product.getRating(),
-                        dateFormat.format(product.getBestBefore())
-                )
-        ).append("\n");
-        if (review != null) {
-            txt.append(
-                    MessageFormat.format(
-                            resourceBundle.getString("review"),
-                            review.getRating().getStars(),
-                            review.getComments()
-                    )
-            );
-        } else {
-            txt.append(resourceBundle.getString("no.review"));
+        printProductReport(product, (review != null) ? List.of(review) : List.of());
+    }
+
+    /**
+     * Prints a report for one product and all of its reviews, read from the
+     * latest version of the catalog.
+     *
+     * @param id The unique identifier of the product
+     */
+    public void printProductReport(int id) {
+        printProductReport(catalog, id);
+    }
+
+    /**
+     * Prints a report for one product and all of its reviews, read from the
+     * given snapshot.
+     *
+     * @param snapshot The catalog version to report on
+     * @param id The unique identifier of the product
+     */
+    public void printProductReport(CatalogSnapshot snapshot, int id) {
+        Product reported = snapshot.getProduct(id);
+        if (reported != null) {
+            printProductReport(reported, snapshot.getReviews(id));
+        }
+    }
+
+    /**
+     * Formats a report for one product and all of its reviews, read from the
+     * given snapshot, without printing it. Safe to call from many threads.
+     *
+     * @param snapshot The catalog version to report on
+     * @param id The unique identifier of the product
+     * @return the report text, or {@code null} if there is no such product in
+     * the snapshot
+     */
+    public String formatProductReport(CatalogSnapshot snapshot, int id) {
+        Product reported = snapshot.getProduct(id);
+        return (reported == null) ? null : formatProductReport(reported, snapshot.getReviews(id));
+    }
+
+    /**
+     * Prints a report for every product in the given snapshot. Because the
+     * whole export reads one catalog version, it is consistent even while
+     * products are being reviewed concurrently.
+     *
+     * @param snapshot The catalog version to export
+     */
+    public void printProductReports(CatalogSnapshot snapshot) {
+        for (Product p : snapshot.getProducts()) {
+            printProductReport(p, snapshot.getReviews(p.getId()));
         }
-        txt.append("\n");
-        System.out.println(txt);
+    }
+
+    /**
+     * Formats a product and its reviews using the localized templates.
+     *
+     * @param reported The product to report on
+     * @param reviews The reviews of the product
+     * @return the formatted report text
+     */
+    private String formatProductReport(Product reported, List<Review> reviews) {
+        loadFormats();
+        return renderer.format(reported, localPrice(reported), reviews);
+    }
+
+    /**
+     * Prints a product and its reviews to the console, rendered into a
+     * reusable pooled buffer instead of an intermediate string.
+     *
+     * @param reported The product to report on
+     * @param reviews The reviews of the product
+     */
+    private void printProductReport(Product reported, List<Review> reviews) {
+        loadFormats();
+        renderer.print(reported, localPrice(reported), reviews, System.out);
+    }
+
+    /**
+     * Loads the resource bundle and formatters for the locale on first use.
+     */
+    private void loadFormats() {
+        if (!formatsLoaded) {
+            synchronized (this) {
+                if (!formatsLoaded) {
+                    resourceBundle = ResourceBundle.getBundle("labs.pm.data.resources", locale);
+                    dateFormat = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).localizedBy(locale);
+                    moneyFormat = NumberFormat.getCurrencyInstance(locale);
+                    renderer = new ReportRenderer(resourceBundle, dateFormat, moneyFormat);
+                    formatsLoaded = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the price of a product in the currency of this manager's locale.
+     *
+     * @param reported The product
+     * @return the converted price, or the catalog price if no converter is set
+     */
+    private BigDecimal localPrice(Product reported) {
+        CurrencyConverter converter = currencyConverter;
+        return (converter == null) ? reported.getPrice() : converter.convert(reported, moneyFormat.getCurrency());
     }
 }
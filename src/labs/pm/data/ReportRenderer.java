@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@code ReportRenderer} renders product reports into reusable pooled
+ * buffers, so printing a report allocates next to nothing once caches are
+ * warm.
+ * <br>
+ * The {@code product} and {@code review} templates of the resource bundle are
+ * split once into literal text and argument slots, the stars of every
+ * {@link Rating} are cached as characters, and formatted prices and dates are
+ * cached by value. A report is assembled by copying characters into a
+ * buffer borrowed from a small lock-free pool, encoded into that buffer's
+ * byte buffer and written to the stream in one call, bypassing
+ * {@code MessageFormat}, {@code StringBuilder} and the string conversions of
+ * {@code PrintStream.println}. The pool is sized by the number of cores
+ * rather than tied to threads, so buffers are reused just as well by the
+ * short-lived virtual threads of {@link AsyncProductManager}, for which a
+ * thread-local buffer would be created anew for every task.
+ * <br>
+ * Templates may use plain {@code {n}} arguments and the quoting rules of
+ * {@link java.text.MessageFormat}; format types such as {@code {0,number}} are
+ * not supported.
+ *
+ * @author User
+ */
+final class ReportRenderer {
+
+    /**
+     * The largest number of formatted prices or dates kept before the cache is
+     * cleared
+     */
+    private static final int MAX_CACHED = 4096;
+
+    /**
+     * The number of idle buffers kept for reuse, enough for every core to
+     * render at once
+     */
+    private static final int POOL_SIZE = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+
+    private static final char[] NEW_LINE = {'\n'};
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    private final Template productTemplate;
+    private final Template reviewTemplate;
+    private final char[] noReview;
+    private final char[][] stars;
+    private final DateTimeFormatter dateFormat;
+    private final NumberFormat moneyFormat;
+    private final Map<BigDecimal, char[]> moneyCache = new ConcurrentHashMap<>();
+    private final Map<LocalDate, char[]> dateCache = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<Buffer> pool = new AtomicReferenceArray<>(POOL_SIZE);
+
+    /**
+     * Constructs a renderer for the templates and formatters of one locale.
+     *
+     * @param resourceBundle The bundle with the report templates
+     * @param dateFormat The formatter for best-before dates
+     * @param moneyFormat The formatter for prices; only used while holding its
+     * lock
+     */
+    ReportRenderer(ResourceBundle resourceBundle, DateTimeFormatter dateFormat, NumberFormat moneyFormat) {
+        this.productTemplate = new Template(resourceBundle.getString("product"));
+        this.reviewTemplate = new Template(resourceBundle.getString("review"));
+        this.noReview = resourceBundle.getString("no.review").toCharArray();
+        this.dateFormat = dateFormat;
+        this.moneyFormat = moneyFormat;
+        Rating[] ratings = Rating.values();
+        stars = new char[ratings.length][];
+        for (Rating rating : ratings) {
+            stars[rating.ordinal()] = rating.getStars().toCharArray();
+        }
+    }
+
+    /**
+     * Renders a report and returns it as a string.
+     *
+     * @param product The product to report on
+     * @param price The price to show
+     * @param reviews The reviews of the product
+     * @return the report text
+     */
+    String format(Product product, BigDecimal price, List<Review> reviews) {
+        Buffer buffer = borrow();
+        try {
+            render(buffer, product, price, reviews);
+            return new String(buffer.chars, 0, buffer.length);
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Renders a report followed by a line separator and writes it to a stream
+     * in the stream's charset, like {@code out.println(format(...))} does.
+     *
+     * @param product The product to report on
+     * @param price The price to show
+     * @param reviews The reviews of the product
+     * @param out The stream to write to
+     */
+    void print(Product product, BigDecimal price, List<Review> reviews, PrintStream out) {
+        Buffer buffer = borrow();
+        try {
+            render(buffer, product, price, reviews);
+            buffer.append(LINE_SEPARATOR);
+            buffer.writeTo(out);
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Takes an idle buffer from the pool, or creates one if all are in use.
+     * The scan starts at a slot picked by thread id, so concurrent threads
+     * mostly touch different slots.
+     *
+     * @return a buffer owned by the caller until it is released
+     */
+    private Buffer borrow() {
+        int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            Buffer buffer = pool.getAndSet((start + i) & (POOL_SIZE - 1), null);
+            if (buffer != null) {
+                return buffer;
+            }
+        }
+        return new Buffer();
+    }
+
+    /**
+     * Returns a buffer to the pool, or drops it if the pool is full.
+     *
+     * @param buffer The buffer to return
+     */
+    private void release(Buffer buffer) {
+        int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (pool.compareAndSet((start + i) & (POOL_SIZE - 1), null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Renders a report into a buffer.
+     *
+     * @param buffer The buffer to render into, emptied first
+     * @param product The product to report on
+     * @param price The price to show
+     * @param reviews The reviews of the product
+     */
+    private void render(Buffer buffer, Product product, BigDecimal price, List<Review> reviews) {
+        buffer.length = 0;
+        Template t = productTemplate;
+        for (int i = 0; i < t.args.length; i++) {
+            buffer.append(t.literals[i]);
+            switch (t.args[i]) {
+                case 0 ->
+                    buffer.append(String.valueOf(product.getName()));
+                case 1 ->
+                    buffer.append(money(price));
+                case 2 ->
+                    buffer.append(stars[product.getRating().ordinal()]);
+                case 3 ->
+                    buffer.append(date(product.getBestBefore()));
+                default ->
+                    buffer.append(t.placeholders[i]);
+            }
+        }
+        buffer.append(t.literals[t.args.length]).append(NEW_LINE);
+        if (reviews.isEmpty()) {
+            buffer.append(noReview).append(NEW_LINE);
+        }
+        for (int r = 0; r < reviews.size(); r++) {
+            Review review = reviews.get(r);
+            t = reviewTemplate;
+            for (int i = 0; i < t.args.length; i++) {
+                buffer.append(t.literals[i]);
+                switch (t.args[i]) {
+                    case 0 ->
+                        buffer.append(stars[review.getRating().ordinal()]);
+                    case 1 ->
+                        buffer.append(String.valueOf(review.getComments()));
+                    default ->
+                        buffer.append(t.placeholders[i]);
+                }
+            }
+            buffer.append(t.literals[t.args.length]).append(NEW_LINE);
+        }
+    }
+
+    private char[] money(BigDecimal amount) {
+        char[] text = moneyCache.get(amount);
+        if (text == null) {
+            synchronized (moneyFormat) {
+                text = moneyFormat.format(amount).toCharArray();
+            }
+            if (moneyCache.size() >= MAX_CACHED) {
+                moneyCache.clear();
+            }
+            moneyCache.put(amount, text);
+        }
+        return text;
+    }
+
+    private char[] date(LocalDate date) {
+        char[] text = dateCache.get(date);
+        if (text == null) {
+            text = dateFormat.format(date).toCharArray();
+            if (dateCache.size() >= MAX_CACHED) {
+                dateCache.clear();
+            }
+            dateCache.put(date, text);
+        }
+        return text;
+    }
+
+    /**
+     * A message template split into literal text and argument slots: literal
+     * 0, argument 0, literal 1, argument 1, ..., last literal.
+     */
+    private static final class Template {
+
+        final char[][] literals;
+        final int[] args;
+        final char[][] placeholders;
+
+        Template(String pattern) {
+            List<char[]> text = new ArrayList<>();
+            List<Integer> indexes = new ArrayList<>();
+            StringBuilder literal = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\'') {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                        literal.append('\'');
+                        i++;
+                    } else {
+                        quoted = !quoted;
+                    }
+                } else if (c == '{' && !quoted) {
+                    int end = pattern.indexOf('}', i);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unmatched braces in the pattern: " + pattern);
+                    }
+                    try {
+                        indexes.add(Integer.parseInt(pattern.substring(i + 1, end).trim()));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Unsupported argument in the pattern: " + pattern, e);
+                    }
+                    text.add(literal.toString().toCharArray());
+                    literal.setLength(0);
+                    i = end;
+                } else {
+                    literal.append(c);
+                }
+            }
+            text.add(literal.toString().toCharArray());
+            literals = text.toArray(new char[0][]);
+            args = indexes.stream().mapToInt(Integer::intValue).toArray();
+            placeholders = new char[args.length][];
+            for (int i = 0; i < args.length; i++) {
+                // arguments the report does not supply render as MessageFormat does
+                placeholders[i] = ("{" + args[i] + "}").toCharArray();
+            }
+        }
+    }
+
+    /**
+     * A growable character buffer with its own encoder and byte buffer, used
+     * by one thread at a time and reused for many reports.
+     */
+    private static final class Buffer {
+
+        char[] chars = new char[512];
+        int length;
+        CharBuffer charView = CharBuffer.wrap(chars);
+        ByteBuffer bytes = ByteBuffer.allocate(1024);
+        CharsetEncoder encoder;
+
+        Buffer append(char[] text) {
+            ensureCapacity(text.length);
+            System.arraycopy(text, 0, chars, length, text.length);
+            length += text.length;
+            return this;
+        }
+
+        Buffer append(String text) {
+            ensureCapacity(text.length());
+            text.getChars(0, text.length(), chars, length);
+            length += text.length();
+            return this;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + extra));
+                charView = CharBuffer.wrap(chars);
+            }
+        }
+
+        void writeTo(PrintStream out) {
+            if (encoder == null || !encoder.charset().equals(out.charset())) {
+                encoder = out.charset().newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            int maxBytes = (int) Math.ceil(length * (double) encoder.maxBytesPerChar());
+            if (bytes.capacity() < maxBytes) {
+                bytes = ByteBuffer.allocate(Math.max(bytes.capacity() * 2, maxBytes));
+            }
+            encoder.reset();
+            charView.clear().limit(length);
+            bytes.clear();
+            // the byte buffer fits the whole report, so it is written in one call
+            encoder.encode(charView, bytes, true);
+            encoder.flush(bytes);
+            out.write(bytes.array(), 0, bytes.position());
+        }
+    }
+}
@@ -0,0 +1,655 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * {@code ReviewIndex} is an in-memory inverted index over the comments of
+ * {@link Review reviews}.
+ * <br>
+ * Every indexed review gets a document number in arrival order. Comments are
+ * split into lower-case words, and each word keeps a postings list of the
+ * documents it occurs in together with its positions in each of them, one
+ * list for each {@link Rating}. Postings
+ * are stored as delta-encoded variable-length integers, so common words cost
+ * about one byte per occurrence. Because document numbers only grow, new
+ * reviews are indexed incrementally by appending to the postings lists.
+ * <br>
+ * A query restricted to a rating reads only that rating's lists. Since every
+ * review has one rating, all its words are in the lists of that rating, so a
+ * query for any rating runs once per rating and merges the results. Each list
+ * is split into blocks of {@value PostingList#BLOCK_SIZE} documents and keeps
+ * where each block starts and ends, so a query skips the blocks before the
+ * document it is looking for without decoding them. A query holds the read lock only while it looks up
+ * its words and notes how far each list reaches; it decodes the postings
+ * after releasing the lock, since indexing only appends past that point. It
+ * sees the reviews indexed before it started, and may or may not see a
+ * removal made while it runs.
+ * <br>
+ * The index answers word and phrase queries, optionally restricted to reviews
+ * with a given {@link Rating}. Register it with
+ * {@link ProductManager#addCatalogListener} to index the existing reviews and
+ * then each review as it arrives. When a product leaves the catalog, its
+ * reviews stop matching queries; their postings stay in place, since the
+ * lists can only be appended to.
+ *
+ * @author User
+ */
+public class ReviewIndex implements CatalogListener {
+
+    /**
+     * Postings lists keyed by word, indexed by rating ordinal
+     */
+    private final Map<String, PostingList[]> postings = new HashMap<>();
+
+    /**
+     * The id of the reviewed product for each document
+     */
+    private int[] productIds = new int[1024];
+
+    /**
+     * Flag set in {@link #ratings} for documents of products that have left
+     * the catalog
+     */
+    private static final int REMOVED = 0x80;
+
+    /**
+     * The ordinal of the review rating for each document, with
+     * {@link #REMOVED} set once the product has left the catalog
+     */
+    private byte[] ratings = new byte[1024];
+
+    /**
+     * For each document, the previous document of the same product, or -1,
+     * chaining all reviews of a product together
+     */
+    private int[] previousDocs = new int[1024];
+
+    /**
+     * The latest document of each product with indexed reviews
+     */
+    private final Map<Integer, Integer> lastDocs = new HashMap<>();
+
+    /**
+     * The number of indexed documents
+     */
+    private int size;
+
+    /**
+     * Lock letting many queries run while no review is being indexed
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes each new review as it is added to the catalog.
+     *
+     * @param product The reviewed product
+     * @param review The new review
+     */
+    @Override
+    public void productReviewed(Product product, Review review) {
+        add(product.getId(), review);
+    }
+
+    /**
+     * Stops matching the reviews of a product that left the catalog. Other
+     * product changes are ignored; only reviews are indexed.
+     *
+     * @param previous The product before the change
+     * @param current The product after the change
+     */
+    @Override
+    public void productChanged(Product previous, Product current) {
+        if (previous != null && current == null) {
+            remove(previous.getId());
+        }
+    }
+
+    /**
+     * Removes all reviews of a product indexed so far from query results.
+     * Reviews added for the product later are indexed as usual.
+     *
+     * @param productId The id of the product
+     */
+    public void remove(int productId) {
+        lock.writeLock().lock();
+        try {
+            Integer last = lastDocs.remove(productId);
+            for (int doc = (last == null) ? -1 : last; doc >= 0; doc = previousDocs[doc]) {
+                ratings[doc] = (byte) (ratings[doc] | REMOVED);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a review to the index.
+     *
+     * @param productId The id of the reviewed product
+     * @param review The review to index
+     * @return the document number assigned to the review
+     */
+    public int add(int productId, Review review) {
+        List<String> words = tokenize(review.getComments());
+        lock.writeLock().lock();
+        try {
+            int doc = size;
+            if (doc == productIds.length) {
+                productIds = Arrays.copyOf(productIds, doc * 2);
+                ratings = Arrays.copyOf(ratings, doc * 2);
+                previousDocs = Arrays.copyOf(previousDocs, doc * 2);
+            }
+            productIds[doc] = productId;
+            Integer previous = lastDocs.put(productId, doc);
+            previousDocs[doc] = (previous == null) ? -1 : previous;
+            int rating = review.getRating().ordinal();
+            ratings[doc] = (byte) rating;
+            Map<String, List<Integer>> positions = new HashMap<>();
+            for (int i = 0; i < words.size(); i++) {
+                positions.computeIfAbsent(words.get(i), w -> new ArrayList<>()).add(i);
+            }
+            for (Map.Entry<String, List<Integer>> e : positions.entrySet()) {
+                PostingList[] lists = postings.computeIfAbsent(e.getKey(), w -> new PostingList[Rating.values().length]);
+                if (lists[rating] == null) {
+                    lists[rating] = new PostingList();
+                }
+                lists[rating].add(doc, e.getValue());
+            }
+            size++;
+            return doc;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the reviews containing a word.
+     *
+     * @param word The word to look for, matched case-insensitively
+     * @param rating Only return reviews with this rating, or {@code null} for
+     * any rating
+     * @return the matching document numbers in ascending order
+     */
+    public int[] search(String word, Rating rating) {
+        return searchPhrase(word, rating);
+    }
+
+    /**
+     * Finds the reviews containing all words of a phrase next to each other
+     * and in order.
+     *
+     * @param phrase The phrase to look for, matched case-insensitively
+     * @param rating Only return reviews with this rating, or {@code null} for
+     * any rating
+     * @return the matching document numbers in ascending order
+     */
+    public int[] searchPhrase(String phrase, Rating rating) {
+        List<String> words = tokenize(phrase);
+        if (words.isEmpty()) {
+            return new int[0];
+        }
+        Rating[] wanted = (rating == null) ? Rating.values() : new Rating[]{rating};
+        Cursor[][] cursors = new Cursor[wanted.length][];
+        byte[] docRatings;
+        lock.readLock().lock();
+        try {
+            for (int r = 0; r < wanted.length; r++) {
+                cursors[r] = cursors(words, wanted[r]);
+            }
+            docRatings = ratings;
+        } finally {
+            lock.readLock().unlock();
+        }
+        int[][] results = new int[wanted.length][];
+        for (int r = 0; r < wanted.length; r++) {
+            results[r] = (cursors[r] == null) ? new int[0] : intersect(cursors[r], docRatings);
+        }
+        return merge(results);
+    }
+
+    /**
+     * Gets the id of the product a document reviews.
+     *
+     * @param doc The document number
+     * @return the product id
+     */
+    public int getProductId(int doc) {
+        lock.readLock().lock();
+        try {
+            return productIds[doc];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the rating of a document.
+     *
+     * @param doc The document number
+     * @return the review rating
+     */
+    public Rating getRating(int doc) {
+        lock.readLock().lock();
+        try {
+            return Rating.values()[ratings[doc] & ~REMOVED];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of indexed reviews, including removed ones, which
+     * keep their document numbers.
+     *
+     * @return the document count
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Splits text into lower-case words made of letters and digits.
+     *
+     * @param text The text to split, may be {@code null}
+     * @return the words in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Opens a cursor on the postings of each word for one rating; must be
+     * called under the read lock.
+     *
+     * @param words The words of the phrase in order
+     * @param rating The rating to read the postings of
+     * @return the cursors in phrase order, or {@code null} if a word has no
+     * review with the rating
+     */
+    private Cursor[] cursors(List<String> words, Rating rating) {
+        Cursor[] cursors = new Cursor[words.size()];
+        for (int i = 0; i < cursors.length; i++) {
+            PostingList[] lists = postings.get(words.get(i));
+            PostingList list = (lists == null) ? null : lists[rating.ordinal()];
+            if (list == null) {
+                return null;
+            }
+            cursors[i] = new Cursor(list);
+        }
+        return cursors;
+    }
+
+    /**
+     * Walks the cursors of a phrase in step and collects the documents where
+     * the words appear next to each other.
+     *
+     * @param cursors The cursors of the phrase words in phrase order
+     * @param docRatings The ratings array captured with the cursors
+     * @return the matching documents that are not removed, in ascending order
+     */
+    private static int[] intersect(Cursor[] cursors, byte[] docRatings) {
+        int[] result = new int[16];
+        int found = 0;
+        int doc = cursors[0].next();
+        candidates:
+        while (doc >= 0) {
+            for (int i = 1; i < cursors.length; i++) {
+                int other = cursors[i].advance(doc);
+                if (other < 0) {
+                    break candidates;
+                }
+                if (other > doc) {
+                    doc = cursors[0].advance(other);
+                    continue candidates;
+                }
+            }
+            if ((docRatings[doc] & REMOVED) == 0 && adjacent(cursors)) {
+                if (found == result.length) {
+                    result = Arrays.copyOf(result, found * 2);
+                }
+                result[found++] = doc;
+            }
+            doc = cursors[0].next();
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Merges ascending arrays of distinct documents.
+     *
+     * @param results The arrays to merge, none sharing a document
+     * @return all documents in ascending order
+     */
+    private static int[] merge(int[][] results) {
+        if (results.length == 1) {
+            return results[0];
+        }
+        int total = 0;
+        for (int[] result : results) {
+            total += result.length;
+        }
+        int[] merged = new int[total];
+        int[] next = new int[results.length];
+        for (int m = 0; m < total; m++) {
+            int min = -1;
+            for (int r = 0; r < results.length; r++) {
+                if (next[r] < results[r].length
+                        && (min < 0 || results[r][next[r]] < results[min][next[min]])) {
+                    min = r;
+                }
+            }
+            merged[m] = results[min][next[min]++];
+        }
+        return merged;
+    }
+
+    /**
+     * Checks whether the cursors, all positioned on the same document, have
+     * positions p, p+1, p+2, ... in order.
+     *
+     * @param cursors The cursors of the phrase words in phrase order
+     * @return true if the words appear next to each other
+     */
+    private static boolean adjacent(Cursor[] cursors) {
+        if (cursors.length == 1) {
+            return true;
+        }
+        for (int start : cursors[0].positions()) {
+            boolean match = true;
+            for (int i = 1; i < cursors.length && match; i++) {
+                match = Arrays.binarySearch(cursors[i].positions(), start + i) >= 0;
+            }
+            if (match) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The postings of one word: for each document, the document number delta,
+     * the number of occurrences and the position deltas, all as varints. Every
+     * {@value #BLOCK_SIZE} documents start a new block, whose first delta is
+     * taken from the last document of the block before.
+     */
+    private static final class PostingList {
+
+        /**
+         * The number of documents in each block
+         */
+        static final int BLOCK_SIZE = 64;
+
+        private byte[] data = new byte[8];
+        private int length;
+        private int lastDoc = -1;
+        private int docs;
+
+        /**
+         * Where each block starts in {@link #data}
+         */
+        private int[] blockOffsets = new int[1];
+
+        /**
+         * The document before each block, -1 for the first
+         */
+        private int[] blockBases = new int[1];
+
+        /**
+         * The last document of each block
+         */
+        private int[] blockLastDocs = new int[1];
+
+        private int blocks;
+
+        /**
+         * Appends a document; documents must be added in ascending order.
+         *
+         * @param doc The document number
+         * @param positions The ascending word positions in the document
+         */
+        void add(int doc, List<Integer> positions) {
+            if (docs % BLOCK_SIZE == 0) {
+                if (blocks == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                    blockBases = Arrays.copyOf(blockBases, blocks * 2);
+                    blockLastDocs = Arrays.copyOf(blockLastDocs, blocks * 2);
+                }
+                blockOffsets[blocks] = length;
+                blockBases[blocks] = lastDoc;
+                blocks++;
+            }
+            writeVarint(doc - lastDoc);
+            writeVarint(positions.size());
+            int last = 0;
+            for (int p : positions) {
+                writeVarint(p - last);
+                last = p;
+            }
+            blockLastDocs[blocks - 1] = doc;
+            lastDoc = doc;
+            docs++;
+        }
+
+        private void writeVarint(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * Reads a postings list one document at a time, skipping whole blocks
+     * when advancing.
+     * <br>
+     * A cursor is created under the read lock and copies the list's array
+     * references, its current length and its last document, none of which
+     * later appends change. It can then be used
+     * without the lock.
+     */
+    private static final class Cursor {
+
+        private final byte[] data;
+        private final int length;
+        private final int[] blockOffsets;
+        private final int[] blockBases;
+        private final int[] blockLastDocs;
+        private final int blocks;
+        private final int lastDoc;
+
+        private int block = -1;
+        private int remaining;
+        private int offset;
+        private int doc = -1;
+        private int[] positions = new int[4];
+        private int freq;
+        private boolean decoded;
+        private int positionsOffset;
+
+        Cursor(PostingList list) {
+            this.data = list.data;
+            this.length = list.length;
+            this.blockOffsets = list.blockOffsets;
+            this.blockBases = list.blockBases;
+            this.blockLastDocs = list.blockLastDocs;
+            this.blocks = list.blocks;
+            this.lastDoc = list.lastDoc;
+        }
+
+        /**
+         * Moves to the next document.
+         *
+         * @return the document number, or -1 when the list is exhausted
+         */
+        int next() {
+            if (remaining == 0) {
+                return enterBlock(block + 1);
+            }
+            if (!decoded) {
+                for (int i = 0; i < freq; i++) {
+                    readVarint();
+                }
+            }
+            return readDoc();
+        }
+
+        /**
+         * Moves to the first document at or after the target.
+         *
+         * @param target The document number to move to
+         * @return the document number, or -1 when the list is exhausted
+         */
+        int advance(int target) {
+            if (doc >= target) {
+                return doc;
+            }
+            if (block >= blocks) {
+                return -1;
+            }
+            if (block < 0 || lastDoc(block) < target) {
+                if (lastDoc < target) {
+                    return exhausted();
+                }
+                // the first block whose last document reaches the target
+                int low = block + 1;
+                int high = blocks - 1;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (lastDoc(mid) < target) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                if (enterBlock(low) < 0) {
+                    return -1;
+                }
+            }
+            while (doc < target) {
+                if (next() < 0) {
+                    return -1;
+                }
+            }
+            return doc;
+        }
+
+        /**
+         * Decodes the positions of the current document.
+         *
+         * @return the ascending positions, one per occurrence
+         */
+        int[] positions() {
+            if (!decoded) {
+                offset = positionsOffset;
+                if (positions.length != freq) {
+                    positions = new int[freq];
+                }
+                int p = 0;
+                for (int i = 0; i < freq; i++) {
+                    p += readVarint();
+                    positions[i] = p;
+                }
+                decoded = true;
+            }
+            return positions;
+        }
+
+        /**
+         * Moves to the first document of a block.
+         *
+         * @param b The block to move to
+         * @return the document number, or -1 when the list is exhausted
+         */
+        private int enterBlock(int b) {
+            if (b >= blocks) {
+                return exhausted();
+            }
+            block = b;
+            offset = blockOffsets[b];
+            doc = blockBases[b];
+            remaining = PostingList.BLOCK_SIZE;
+            return readDoc();
+        }
+
+        private int readDoc() {
+            if (offset >= length) {
+                return exhausted();
+            }
+            doc += readVarint();
+            freq = readVarint();
+            positionsOffset = offset;
+            decoded = false;
+            remaining--;
+            return doc;
+        }
+
+        private int exhausted() {
+            block = blocks;
+            remaining = 0;
+            doc = -1;
+            return doc;
+        }
+
+        private int lastDoc(int b) {
+            return (b == blocks - 1) ? lastDoc : blockLastDocs[b];
+        }
+
+        private int readVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
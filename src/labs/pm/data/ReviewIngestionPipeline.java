@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@code ReviewIngestionPipeline} absorbs bursts of reviews and applies them
+ * to a {@link ProductManager} in micro-batches.
+ * <br>
+ * Each product has its own bounded queue. A product with pending reviews is
+ * handed to one worker at a time, which drains up to a batch of its reviews
+ * and applies them with a single
+ * {@link ProductManager#reviewProduct(int, List)} call, so a burst for the same
+ * product costs one rating recompute and one catalog swap per batch. Reviews
+ * of a product are applied in the order they were accepted.
+ * <br>
+ * When a product queue is full, {@link #offer} sheds the review and returns
+ * false straight away, while {@link #submit} makes the producer wait for space
+ * up to a timeout. Queue depth and batch sizes are exposed as metrics. A
+ * product queue is discarded as soon as it is drained, so memory is bounded
+ * by the products with pending reviews, not by every id ever offered.
+ *
+ * @author User
+ */
+public class ReviewIngestionPipeline implements AutoCloseable {
+
+    /**
+     * The catalog reviews are applied to
+     */
+    private final ProductManager productManager;
+
+    /**
+     * The maximum number of pending reviews per product
+     */
+    private final int queueCapacity;
+
+    /**
+     * The maximum number of reviews applied in one batch
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Pending reviews keyed by product id
+     */
+    private final Map<Integer, ProductQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Product queues with pending reviews that no worker is draining yet
+     */
+    private final BlockingQueue<ProductQueue> ready = new LinkedBlockingQueue<>();
+
+    /**
+     * The worker threads draining product queues
+     */
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong batchedReviews = new AtomicLong();
+    private final AtomicInteger maxObservedBatch = new AtomicInteger();
+
+    private volatile boolean closed;
+
+    /**
+     * The exception of the latest failed batch, or {@code null}
+     */
+    private volatile RuntimeException lastFailure;
+
+    /**
+     * Pending reviews of one product
+     */
+    private static final class ProductQueue {
+
+        final int id;
+        final ArrayDeque<Review> pending = new ArrayDeque<>();
+        boolean scheduled;
+
+        /**
+         * Set once the queue is drained and removed from the map; producers
+         * that still hold it must look up a fresh one
+         */
+        boolean retired;
+
+        ProductQueue(int id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Constructs a pipeline and starts its workers.
+     *
+     * @param productManager The catalog to apply reviews to
+     * @param workerCount The number of worker threads
+     * @param queueCapacity The maximum number of pending reviews per product
+     * @param maxBatchSize The maximum number of reviews applied in one batch
+     */
+    public ReviewIngestionPipeline(ProductManager productManager, int workerCount, int queueCapacity, int maxBatchSize) {
+        if (workerCount < 1 || queueCapacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Worker count, queue capacity and batch size must be positive");
+        }
+        this.productManager = productManager;
+        this.queueCapacity = queueCapacity;
+        this.maxBatchSize = maxBatchSize;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::drain, "review-ingestion-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues a review without waiting. If the product queue is full the review
+     * is shed.
+     *
+     * @param id The unique identifier of the product to be reviewed
+     * @param rating The rating to assign to the product
+     * @param comments The review comments
+     * @return true if the review was accepted, false if it was shed
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    public boolean offer(int id, Rating rating, String comments) {
+        Review review = new Review(rating, comments);
+        while (true) {
+            ProductQueue queue = queueOf(id);
+            synchronized (queue) {
+                if (queue.retired) {
+                    continue;
+                }
+                if (queue.pending.size() >= queueCapacity) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                enqueue(queue, review);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Queues a review, waiting for space in the product queue if it is full.
+     *
+     * @param id The unique identifier of the product to be reviewed
+     * @param rating The rating to assign to the product
+     * @param comments The review comments
+     * @param timeout The longest time to wait for space
+     * @return true if the review was accepted, false if the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    public boolean submit(int id, Rating rating, String comments, Duration timeout) throws InterruptedException {
+        Review review = new Review(rating, comments);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            ProductQueue queue = queueOf(id);
+            synchronized (queue) {
+                while (!queue.retired && queue.pending.size() >= queueCapacity) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        rejected.incrementAndGet();
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(queue, remaining);
+                }
+                if (queue.retired) {
+                    continue;
+                }
+                enqueue(queue, review);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of reviews waiting to be applied.
+     *
+     * @return the total queue depth
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Gets the number of reviews accepted so far.
+     *
+     * @return the accepted review count
+     */
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    /**
+     * Gets the number of reviews shed or timed out because a product queue was
+     * full.
+     *
+     * @return the rejected review count
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Gets the number of accepted reviews dropped because their product was
+     * not in the catalog.
+     *
+     * @return the dropped review count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of batches applied so far.
+     *
+     * @return the batch count
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Gets the number of batches whose reviews could not be applied because
+     * the catalog threw an exception. Their reviews are lost.
+     *
+     * @return the failed batch count
+     * @see #getLastFailure()
+     */
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    /**
+     * Gets the exception thrown by the catalog for the latest failed batch.
+     *
+     * @return the exception, or {@code null} if no batch has failed
+     */
+    public RuntimeException getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Gets the average number of reviews per applied batch.
+     *
+     * @return the average batch size, 0 if no batch was applied yet
+     */
+    public double getAverageBatchSize() {
+        long count = batches.get();
+        return (count == 0) ? 0 : (double) batchedReviews.get() / count;
+    }
+
+    /**
+     * Gets the largest batch applied so far.
+     *
+     * @return the maximum batch size
+     */
+    public int getMaxBatchSize() {
+        return maxObservedBatch.get();
+    }
+
+    /**
+     * Stops accepting reviews, waits for the pending ones to be applied and
+     * stops the workers. If the calling thread is interrupted it stops
+     * waiting and keeps its interrupt status, while the workers finish
+     * draining in the background.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ProductQueue queueOf(int id) {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        return queues.computeIfAbsent(id, ProductQueue::new);
+    }
+
+    /**
+     * Adds a review to a product queue and schedules the queue for draining.
+     * Must be called while holding the queue's lock.
+     * <br>
+     * The queue depth is raised before {@code closed} is checked, while a
+     * worker reads {@code closed} before the depth. Either the worker sees
+     * the raised depth and keeps draining, or this check sees the pipeline
+     * closed, so no review is accepted after the workers have stopped.
+     *
+     * @param queue The product queue
+     * @param review The review to add
+     * @throws IllegalStateException if the pipeline is closed
+     */
+    private void enqueue(ProductQueue queue, Review review) {
+        queueDepth.incrementAndGet();
+        if (closed) {
+            queueDepth.decrementAndGet();
+            if (!queue.scheduled) {
+                queue.retired = true;
+                queues.remove(queue.id, queue);
+            }
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        queue.pending.add(review);
+        accepted.incrementAndGet();
+        if (!queue.scheduled) {
+            queue.scheduled = true;
+            ready.add(queue);
+        }
+    }
+
+    /**
+     * The worker loop: takes a scheduled product queue, applies one batch of
+     * its reviews and reschedules it if more reviews arrived meanwhile, or
+     * discards it once it is empty. A batch the catalog fails on is counted,
+     * its exception is kept as the last failure and the worker carries on.
+     */
+    private void drain() {
+        try {
+            while (!closed || queueDepth.get() > 0) {
+                ProductQueue queue = ready.poll(100, TimeUnit.MILLISECONDS);
+                if (queue == null) {
+                    continue;
+                }
+                List<Review> batch = new ArrayList<>(Math.min(maxBatchSize, queueCapacity));
+                synchronized (queue) {
+                    while (batch.size() < maxBatchSize && !queue.pending.isEmpty()) {
+                        batch.add(queue.pending.poll());
+                    }
+                    queue.notifyAll();
+                }
+                try {
+                    if (productManager.reviewProduct(queue.id, batch) == null) {
+                        dropped.addAndGet(batch.size());
+                    }
+                } catch (RuntimeException e) {
+                    lastFailure = e;
+                    failedBatches.incrementAndGet();
+                } finally {
+                    queueDepth.addAndGet(-batch.size());
+                    batches.incrementAndGet();
+                    batchedReviews.addAndGet(batch.size());
+                    maxObservedBatch.accumulateAndGet(batch.size(), Math::max);
+                    synchronized (queue) {
+                        if (queue.pending.isEmpty()) {
+                            queue.scheduled = false;
+                            queue.retired = true;
+                            queues.remove(queue.id, queue);
+                        } else {
+                            ready.add(queue);
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
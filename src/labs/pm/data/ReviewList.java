@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@code ReviewList} is an immutable list of reviews that versions of the
+ * catalog share when reviews are appended.
+ * <br>
+ * Every version is a prefix of one backing array. Appending to the newest
+ * version writes into the spare capacity after the prefix and returns a
+ * longer view of the same array, so an append costs amortized O(1) however
+ * many reviews a product already has. Older versions never see the new
+ * slots because their size does not cover them. Only the first append to a
+ * given version may claim the spare capacity; appending to an older version
+ * again copies the array.
+ *
+ * @author User
+ */
+final class ReviewList extends AbstractList<Review> implements RandomAccess {
+
+    /**
+     * Capacity of the smallest backing array
+     */
+    private static final int MIN_CAPACITY = 4;
+
+    /**
+     * The backing array, shared by every version built from it
+     */
+    private final Review[] items;
+
+    /**
+     * How many slots of the backing array belong to some version
+     */
+    private final AtomicInteger claimed;
+
+    /**
+     * The number of reviews in this version
+     */
+    private final int size;
+
+    private ReviewList(Review[] items, AtomicInteger claimed, int size) {
+        this.items = items;
+        this.claimed = claimed;
+        this.size = size;
+    }
+
+    /**
+     * Creates a list of reviews.
+     *
+     * @param reviews The reviews, in order
+     * @return a new list
+     */
+    static ReviewList of(List<Review> reviews) {
+        return new ReviewList(new Review[0], new AtomicInteger(), 0).appendAll(reviews);
+    }
+
+    /**
+     * Creates a version of this list with reviews appended. This list is not
+     * changed.
+     *
+     * @param added The reviews to append, in order
+     * @return the longer list, or this list if there is nothing to append
+     */
+    ReviewList appendAll(List<Review> added) {
+        int count = added.size();
+        if (count == 0) {
+            return this;
+        }
+        int nextSize = size + count;
+        if (nextSize <= items.length && claimed.compareAndSet(size, nextSize)) {
+            copyInto(items, added);
+            return new ReviewList(items, claimed, nextSize);
+        }
+        Review[] grown = Arrays.copyOf(items, Math.max(MIN_CAPACITY, nextSize + (nextSize >> 1)));
+        copyInto(grown, added);
+        return new ReviewList(grown, new AtomicInteger(nextSize), nextSize);
+    }
+
+    private void copyInto(Review[] target, List<Review> added) {
+        for (int i = 0; i < added.size(); i++) {
+            target[size + i] = Objects.requireNonNull(added.get(i));
+        }
+    }
+
+    @Override
+    public Review get(int index) {
+        Objects.checkIndex(index, size);
+        return items[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests how {@link DiscountPolicy} compiles {@link DiscountRule rules} into
+ * its decision tables.
+ *
+ * @author User
+ */
+public class DiscountPolicyTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+    @Test
+    public void timeWindowWrapsPastMidnight() {
+        DiscountPolicy policy = DiscountPolicy.compile(List.of(DiscountRule.parse("time drink 23:00 01:00 0.2")));
+        Product drink = drink(Rating.NOT_RATED);
+        assertEquals(0, policy.getRate(drink, DAY.atTime(22, 59)));
+        assertEquals(2000, policy.getRate(drink, DAY.atTime(23, 0)));
+        assertEquals(2000, policy.getRate(drink, DAY.atTime(0, 0)));
+        assertEquals(2000, policy.getRate(drink, DAY.atTime(0, 59, 59)));
+        assertEquals(0, policy.getRate(drink, DAY.atTime(1, 0)));
+        assertEquals(0, policy.getRate(food(DAY.plusDays(9)), DAY.atTime(23, 30)));
+    }
+
+    @Test
+    public void timeWindowEndIsExclusive() {
+        DiscountPolicy policy = DiscountPolicy.compile(List.of(
+                DiscountRule.timeWindow(Product.class, LocalTime.of(9, 0), LocalTime.of(9, 1), new BigDecimal("0.3"))));
+        assertEquals(3000, policy.getRate(drink(Rating.NOT_RATED), DAY.atTime(9, 0, 59)));
+        assertEquals(0, policy.getRate(drink(Rating.NOT_RATED), DAY.atTime(9, 1)));
+        assertEquals(3000, policy.getRate(food(DAY.plusDays(9)), DAY.atTime(9, 0)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyTimeWindowIsRejected() {
+        DiscountRule.timeWindow(Drink.class, LocalTime.of(18, 0), LocalTime.of(18, 0, 30), BigDecimal.ONE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyTimeWindowTextIsRejected() {
+        DiscountRule.parse("time drink 18:00 18:00 0.5");
+    }
+
+    @Test
+    public void expiryCoversTheLastDaysUpToBestBefore() {
+        DiscountPolicy policy = DiscountPolicy.compile(List.of(DiscountRule.expiry(2, new BigDecimal("0.1"))));
+        Product food = food(DAY);
+        assertEquals(0, policy.getRate(food, DAY.minusDays(3).atTime(12, 0)));
+        assertEquals(1000, policy.getRate(food, DAY.minusDays(2).atTime(12, 0)));
+        assertEquals(1000, policy.getRate(food, DAY.minusDays(1).atTime(12, 0)));
+        assertEquals(1000, policy.getRate(food, DAY.atTime(23, 59)));
+        assertEquals(0, policy.getRate(food, DAY.plusDays(1).atTime(0, 0)));
+        assertEquals(0, policy.getRate(drink(Rating.NOT_RATED), DAY.atTime(12, 0)));
+    }
+
+    @Test
+    public void highestMatchingRateWins() {
+        DiscountPolicy policy = DiscountPolicy.compile(List.of(
+                DiscountRule.parse("category food 0.05"),
+                DiscountRule.parse("rating all FOUR_STAR 0.02"),
+                DiscountRule.parse("expiry 0 0.1"),
+                DiscountRule.parse("time food 10:00 11:00 0.07")));
+        Product food = new Food(1, "Cake", new BigDecimal("2.00"), Rating.FIVE_STAR, DAY.plusDays(5));
+        assertEquals(500, policy.getRate(food, DAY.atTime(12, 0)));
+        assertEquals(700, policy.getRate(food, DAY.atTime(10, 30)));
+        assertEquals(1000, policy.getRate(food, DAY.plusDays(5).atTime(10, 30)));
+        assertEquals(200, policy.getRate(drink(Rating.FOUR_STAR), DAY.atTime(10, 30)));
+        assertEquals(0, policy.getRate(drink(Rating.THREE_STAR), DAY.atTime(10, 30)));
+        assertEquals(new BigDecimal("0.14"), policy.getDiscount(food, DAY.atTime(10, 30)));
+    }
+
+    @Test
+    public void defaultMatchesHardcodedRulesEveryMinute() {
+        Product drink = drink(Rating.NOT_RATED);
+        for (int minute = 0; minute < 24 * 60; minute++) {
+            // half past the minute, clear of the instant 17:30:00 Drink leaves out
+            LocalTime time = LocalTime.of(minute / 60, minute % 60, 30);
+            boolean happyHour = time.isAfter(LocalTime.of(17, 30)) && time.isBefore(LocalTime.of(18, 30));
+            BigDecimal expected = happyHour ? new BigDecimal("0.20") : BigDecimal.ZERO;
+            assertEquals(time.toString(), expected, DiscountPolicy.DEFAULT.getDiscount(drink, DAY.atTime(time)));
+        }
+        for (int days = -2; days <= 2; days++) {
+            Product food = food(DAY.plusDays(days));
+            BigDecimal expected = (days == 0) ? new BigDecimal("0.20") : BigDecimal.ZERO;
+            assertEquals("days " + days, expected, DiscountPolicy.DEFAULT.getDiscount(food, DAY.atTime(9, 0)));
+        }
+    }
+
+    @Test
+    public void defaultMatchesFoodAndDrinkNow() {
+        Product[] products = {drink(Rating.NOT_RATED), food(LocalDate.now()), food(LocalDate.now().plusDays(1))};
+        for (Product product : products) {
+            BigDecimal expected;
+            BigDecimal actual;
+            LocalDateTime before;
+            LocalDateTime after;
+            // retry if the minute turned while comparing
+            do {
+                before = LocalDateTime.now();
+                expected = product.getDiscount();
+                actual = DiscountPolicy.DEFAULT.getDiscount(product, before);
+                after = LocalDateTime.now();
+            } while (before.getMinute() != after.getMinute());
+            assertEquals(product.toString(), expected, actual);
+        }
+    }
+
+    private static Product drink(Rating rating) {
+        return new Drink(1, "Tea", new BigDecimal("1.99"), rating);
+    }
+
+    private static Product food(LocalDate bestBefore) {
+        return new Food(2, "Cake", new BigDecimal("1.99"), Rating.NOT_RATED, bestBefore);
+    }
+}
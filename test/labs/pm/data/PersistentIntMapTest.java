@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the trie of {@link PersistentIntMap} against a {@code HashMap}, and
+ * that writes leave earlier versions unchanged.
+ *
+ * @author User
+ */
+public class PersistentIntMapTest {
+
+    @Test
+    public void putGetAndReplace() {
+        PersistentIntMap<String> empty = PersistentIntMap.empty();
+        PersistentIntMap<String> one = empty.put(0, "tea");
+        assertEquals("tea", one.get(0));
+        assertTrue(one.containsKey(0));
+        assertFalse(one.containsKey(1));
+        assertNull(one.get(1));
+        assertEquals(1, one.size());
+
+        PersistentIntMap<String> replaced = one.put(0, "coffee");
+        assertEquals("coffee", replaced.get(0));
+        assertEquals(1, replaced.size());
+        assertEquals("tea", one.get(0));
+        assertEquals(0, empty.size());
+        assertNull(empty.get(0));
+    }
+
+    @Test
+    public void unchangedWritesReturnTheSameMap() {
+        String tea = "tea";
+        PersistentIntMap<String> map = PersistentIntMap.<String>empty().put(1, tea);
+        assertSame(map, map.put(1, tea));
+        assertSame(map, map.remove(2));
+    }
+
+    @Test
+    public void removingDownToOneEntryKeepsItReachable() {
+        // keys sharing their lowest hash bits sit in child nodes below the root
+        int[] ids = idsWithLowBits(Product.mix(1) & 1023, 3);
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        for (int id : ids) {
+            map = map.put(id, id);
+        }
+        map = map.remove(ids[0]).remove(ids[1]);
+        assertEquals(1, map.size());
+        assertEquals(Integer.valueOf(ids[2]), map.get(ids[2]));
+        map = map.put(ids[0], ids[0]);
+        assertEquals(Integer.valueOf(ids[0]), map.get(ids[0]));
+        assertEquals(Integer.valueOf(ids[2]), map.get(ids[2]));
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random random = new Random(9);
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int key = (random.nextInt(4) == 0) ? random.nextInt() : random.nextInt(3000) - 1500;
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                int value = random.nextInt();
+                expected.put(key, value);
+                map = map.put(key, value);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -1500; key < 1500; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+            assertEquals(e.getValue(), map.get(e.getKey()));
+        }
+        assertEquals(sorted(expected.values()), sorted(map.values()));
+        assertEquals(sorted(expected.values()), sorted(map.stream().collect(Collectors.toList())));
+        assertEquals(expected.size(), map.stream().parallel().count());
+    }
+
+    @Test
+    public void olderVersionsAreUnchanged() {
+        Random random = new Random(13);
+        List<PersistentIntMap<Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> contents = new ArrayList<>();
+        PersistentIntMap<Integer> map = PersistentIntMap.empty();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, i);
+                map = map.put(key, i);
+            }
+            if (i % 50 == 0) {
+                versions.add(map);
+                contents.add(new HashMap<>(expected));
+            }
+        }
+        for (int v = 0; v < versions.size(); v++) {
+            PersistentIntMap<Integer> version = versions.get(v);
+            Map<Integer, Integer> content = contents.get(v);
+            assertEquals(content.size(), version.size());
+            for (int key = 0; key < 500; key++) {
+                assertEquals("version " + v + " key " + key, content.get(key), version.get(key));
+            }
+            assertEquals(new HashSet<>(content.values()), new HashSet<>(version.values()));
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void putRejectsNull() {
+        PersistentIntMap.<String>empty().put(1, null);
+    }
+
+    /**
+     * Finds ids whose mixed hashes share their lowest ten bits, so they share
+     * the root slot and the slot below it.
+     */
+    private static int[] idsWithLowBits(int bits, int count) {
+        int[] ids = new int[count];
+        for (int id = 0, found = 0; found < count; id++) {
+            if ((Product.mix(id) & 1023) == bits) {
+                ids[found++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private static List<Integer> sorted(Collection<Integer> values) {
+        List<Integer> list = new ArrayList<>(values);
+        list.sort(null);
+        return list;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Map;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests how {@link PriceHistoryStore} records catalog prices and validates
+ * rollups.
+ *
+ * @author User
+ */
+public class PriceHistoryStoreTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    public void rollupKeepsClosingPriceOfEachBucket() {
+        ProductManager pm = new ProductManager(Locale.UK);
+        PriceHistoryStore store = new PriceHistoryStore(Clock.fixed(START, ZoneOffset.UTC));
+        pm.addCatalogListener(store);
+        pm.createProduct(1, "Tea", new BigDecimal("1.99"), Rating.NOT_RATED);
+
+        Map<Integer, BigDecimal[]> rollup = store.rollup(START.minusSeconds(60), START.plusSeconds(90), Duration.ofMinutes(1));
+        assertArrayEquals(new BigDecimal[]{null, new BigDecimal("1.99"), new BigDecimal("1.99")}, rollup.get(1));
+    }
+
+    @Test
+    public void partialLastBucketClosesAtEndOfRange() {
+        SettableClock clock = new SettableClock(START);
+        PriceHistoryStore store = new PriceHistoryStore(clock);
+        store.productChanged(null, new Drink(1, "Tea", new BigDecimal("1.00"), Rating.NOT_RATED));
+        clock.now = START.plus(Duration.ofHours(20));
+        store.productChanged(new Drink(1, "Tea", new BigDecimal("1.00"), Rating.NOT_RATED),
+                new Drink(1, "Tea", new BigDecimal("5.00"), Rating.NOT_RATED));
+
+        assertArrayEquals(new BigDecimal[]{new BigDecimal("1.00")},
+                store.rollup(START, START.plus(Duration.ofHours(12)), Duration.ofDays(1)).get(1));
+        assertArrayEquals(new BigDecimal[]{new BigDecimal("1.00"), new BigDecimal("5.00")},
+                store.rollup(START, START.plus(Duration.ofHours(21)), Duration.ofHours(12)).get(1));
+        // a change exactly at the end of the range is not included
+        assertArrayEquals(new BigDecimal[]{new BigDecimal("1.00"), new BigDecimal("1.00")},
+                store.rollup(START, START.plus(Duration.ofHours(20)), Duration.ofHours(12)).get(1));
+    }
+
+    @Test
+    public void emptyRangeHasNoBuckets() {
+        PriceHistoryStore store = new PriceHistoryStore();
+        store.productChanged(null, new Drink(1, "Tea", BigDecimal.ONE, Rating.NOT_RATED));
+        assertEquals(0, store.rollup(START, START, Duration.ofHours(1)).get(1).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rollupRejectsReversedRange() {
+        new PriceHistoryStore().rollup(START, START.minusMillis(1), Duration.ofHours(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rollupRejectsZeroBucket() {
+        new PriceHistoryStore().rollup(START, START.plusSeconds(1), Duration.ZERO);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rollupRejectsSubMillisecondBucket() {
+        new PriceHistoryStore().rollup(START, START.plusSeconds(1), Duration.ofNanos(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rollupRejectsTooManyBuckets() {
+        new PriceHistoryStore().rollup(Instant.EPOCH, START, Duration.ofMillis(1));
+    }
+
+    /**
+     * A clock the test moves by hand.
+     */
+    private static final class SettableClock extends Clock {
+
+        Instant now;
+
+        SettableClock(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
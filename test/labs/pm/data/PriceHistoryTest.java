@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the zig-zag varint encoding and the checkpoints of
+ * {@link PriceHistory} against a {@code TreeMap} holding the same changes.
+ *
+ * @author User
+ */
+public class PriceHistoryTest {
+
+    private static final long START = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    @Test
+    public void priceBeforeFirstChangeIsNull() {
+        PriceHistory history = new PriceHistory();
+        assertNull(history.priceAt(Instant.ofEpochMilli(START)));
+        history.record(Instant.ofEpochMilli(START), new BigDecimal("1.99"));
+        assertNull(history.priceAt(Instant.ofEpochMilli(START - 1)));
+        assertEquals(new BigDecimal("1.99"), history.priceAt(Instant.ofEpochMilli(START)));
+    }
+
+    @Test
+    public void negativeAndLargeDeltasRoundTrip() {
+        PriceHistory history = new PriceHistory();
+        TreeMap<Long, BigDecimal> expected = new TreeMap<>();
+        String[] prices = {"0.01", "999999999.99", "0.00", "-5.00", "123456789012.34", "0.02", "-999999999.99"};
+        long time = START;
+        for (int i = 0; i < prices.length; i++) {
+            time += (i % 2 == 0) ? 1 : 10L * 365 * 24 * 3600 * 1000;
+            record(history, expected, time, new BigDecimal(prices[i]));
+        }
+        assertMatches(expected, history);
+    }
+
+    @Test
+    public void lookupsAgreeAcrossCheckpointBoundaries() {
+        int interval = PriceHistory.CHECKPOINT_INTERVAL;
+        for (int changes : new int[]{1, interval - 1, interval, interval + 1, 2 * interval, 5 * interval + 3}) {
+            PriceHistory history = new PriceHistory();
+            TreeMap<Long, BigDecimal> expected = new TreeMap<>();
+            for (int i = 0; i < changes; i++) {
+                record(history, expected, START + i * 60_000L, BigDecimal.valueOf(100 + (i % 7) * 13 - (i % 3) * 29, 2));
+            }
+            assertEquals(changes, history.size());
+            assertMatches(expected, history);
+        }
+    }
+
+    @Test
+    public void randomWalkMatchesReference() {
+        Random random = new Random(42);
+        PriceHistory history = new PriceHistory();
+        TreeMap<Long, BigDecimal> expected = new TreeMap<>();
+        long time = START;
+        long cents = 500;
+        for (int i = 0; i < 5000; i++) {
+            // equal timestamps are allowed and the later price wins
+            time += (random.nextInt(10) == 0) ? 0 : 1 + random.nextInt(86_400_000);
+            cents += random.nextInt(2001) - 1000;
+            record(history, expected, time, BigDecimal.valueOf(cents, 2));
+        }
+        assertMatches(expected, history);
+    }
+
+    @Test
+    public void earlierTimestampIsTreatedAsLast() {
+        PriceHistory history = new PriceHistory();
+        history.record(Instant.ofEpochMilli(START + 1000), new BigDecimal("2.00"));
+        history.record(Instant.ofEpochMilli(START), new BigDecimal("3.00"));
+        assertNull(history.priceAt(Instant.ofEpochMilli(START + 999)));
+        assertEquals(new BigDecimal("3.00"), history.priceAt(Instant.ofEpochMilli(START + 1000)));
+    }
+
+    @Test
+    public void pricesAreRoundedToCents() {
+        PriceHistory history = new PriceHistory();
+        history.record(Instant.ofEpochMilli(START), new BigDecimal("1.005"));
+        assertEquals(new BigDecimal("1.01"), history.priceAt(Instant.ofEpochMilli(START)));
+    }
+
+    @Test
+    public void typicalChangesTakeFewBytes() {
+        PriceHistory history = new PriceHistory();
+        Random random = new Random(7);
+        long cents = 1000;
+        for (int i = 0; i < 10_000; i++) {
+            cents += random.nextInt(199) - 99;
+            history.record(Instant.ofEpochMilli(START + i * 60_000L), BigDecimal.valueOf(cents, 2));
+        }
+        assertTrue("encoded size " + history.encodedSize(), history.encodedSize() <= 6 * history.size());
+    }
+
+    @Test
+    public void changesReturnsHalfOpenRange() {
+        PriceHistory history = new PriceHistory();
+        TreeMap<Long, BigDecimal> expected = new TreeMap<>();
+        for (int i = 0; i < 200; i++) {
+            record(history, expected, START + i * 1000L, BigDecimal.valueOf(i, 2));
+        }
+        for (int[] range : new int[][]{{0, 200}, {31, 33}, {32, 64}, {-5, 3}, {150, 400}, {50, 50}}) {
+            long from = START + range[0] * 1000L;
+            long to = START + range[1] * 1000L;
+            NavigableMap<Instant, BigDecimal> changes = history.changes(Instant.ofEpochMilli(from), Instant.ofEpochMilli(to));
+            NavigableMap<Long, BigDecimal> reference = expected.subMap(from, true, to, false);
+            assertEquals(reference.size(), changes.size());
+            for (Map.Entry<Instant, BigDecimal> e : changes.entrySet()) {
+                assertEquals(reference.get(e.getKey().toEpochMilli()), e.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void downsampleKeepsClosingPrices() {
+        PriceHistory history = new PriceHistory();
+        TreeMap<Long, BigDecimal> expected = new TreeMap<>();
+        Random random = new Random(3);
+        long time = START + 5000;
+        for (int i = 0; i < 300; i++) {
+            time += random.nextInt(5000);
+            record(history, expected, time, BigDecimal.valueOf(random.nextInt(10_000), 2));
+        }
+        long bucket = 7000;
+        int buckets = (int) ((time - START) / bucket) + 2;
+        long end = START + (buckets - 1) * bucket + bucket / 3;
+        long[] closes = history.downsample(START, end, bucket, buckets);
+        for (int b = 0; b < buckets; b++) {
+            Map.Entry<Long, BigDecimal> close = expected.floorEntry(Math.min(START + (b + 1) * bucket, end) - 1);
+            long cents = (close == null) ? Long.MIN_VALUE : close.getValue().unscaledValue().longValueExact();
+            assertEquals("bucket " + b, cents, closes[b]);
+        }
+    }
+
+    private static void record(PriceHistory history, TreeMap<Long, BigDecimal> expected, long time, BigDecimal price) {
+        history.record(Instant.ofEpochMilli(time), price);
+        expected.put(time, price.setScale(2));
+    }
+
+    /**
+     * Looks up every recorded time, the millisecond before it and a time in
+     * between, and compares with the reference.
+     */
+    private static void assertMatches(TreeMap<Long, BigDecimal> expected, PriceHistory history) {
+        for (long time : expected.keySet()) {
+            for (long probe : new long[]{time - 1, time, time + 1}) {
+                Map.Entry<Long, BigDecimal> floor = expected.floorEntry(probe);
+                BigDecimal actual = history.priceAt(Instant.ofEpochMilli(probe));
+                if (floor == null) {
+                    assertNull("at " + probe, actual);
+                } else {
+                    assertEquals("at " + probe, floor.getValue(), actual);
+                }
+            }
+        }
+    }
+}
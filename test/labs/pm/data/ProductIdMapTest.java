@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the open addressing of {@link ProductIdMap}, in particular that
+ * backward-shift deletion keeps every remaining key reachable.
+ *
+ * @author User
+ */
+public class ProductIdMapTest {
+
+    @Test
+    public void putGetAndReplace() {
+        ProductIdMap map = new ProductIdMap();
+        Product tea = product(0);
+        map.put(0, tea);
+        assertSame(tea, map.get(0));
+        assertTrue(map.containsKey(0));
+        assertNull(map.get(1));
+
+        Product other = product(0);
+        map.put(0, other);
+        assertSame(other, map.get(0));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void removeShiftsCollidingKeysBack() {
+        // keys sharing a home slot form one probe run; room for 8 gives 16 slots
+        ProductIdMap map = new ProductIdMap(8);
+        int[] ids = idsWithHome(Product.mix(1) & 15, 5);
+        for (int id : ids) {
+            map.put(id, product(id));
+        }
+        map.remove(ids[0]);
+        map.remove(ids[2]);
+        assertFalse(map.containsKey(ids[0]));
+        assertFalse(map.containsKey(ids[2]));
+        for (int id : new int[]{ids[1], ids[3], ids[4]}) {
+            assertEquals(id, map.get(id).getId());
+        }
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void removeWrapsAroundTheTable() {
+        // a run starting in the last slot continues at the front of the table
+        ProductIdMap map = new ProductIdMap(8);
+        int[] ids = idsWithHome(15, 4);
+        for (int id : ids) {
+            map.put(id, product(id));
+        }
+        int other = idsWithHome(0, 1)[0];
+        map.put(other, product(other));
+
+        map.remove(ids[0]);
+        for (int id : new int[]{ids[1], ids[2], ids[3], other}) {
+            assertEquals(id, map.get(id).getId());
+        }
+        map.remove(ids[2]);
+        for (int id : new int[]{ids[1], ids[3], other}) {
+            assertEquals(id, map.get(id).getId());
+        }
+        assertEquals(3, map.size());
+        assertEquals(3, map.values().size());
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random random = new Random(5);
+        ProductIdMap map = new ProductIdMap();
+        Map<Integer, Product> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int id = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), map.remove(id));
+            } else {
+                Product p = product(id);
+                expected.put(id, p);
+                map.put(id, p);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int id = -1000; id < 1000; id++) {
+            assertSame(expected.get(id), map.get(id));
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+        assertEquals(expected.size(), map.values().size());
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        ProductIdMap map = new ProductIdMap();
+        map.put(1, product(1));
+        ProductIdMap copy = new ProductIdMap(map);
+        copy.remove(1);
+        copy.put(2, product(2));
+        assertTrue(map.containsKey(1));
+        assertFalse(map.containsKey(2));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void putRejectsNull() {
+        new ProductIdMap().put(1, null);
+    }
+
+    /**
+     * Finds ids that hash to the same slot of a 16 slot table.
+     */
+    private static int[] idsWithHome(int slot, int count) {
+        int[] ids = new int[count];
+        for (int id = 0, found = 0; found < count; id++) {
+            if ((Product.mix(id) & 15) == slot) {
+                ids[found++] = id;
+            }
+        }
+        return ids;
+    }
+
+    private static Product product(int id) {
+        return new Drink(id, "Product " + id, BigDecimal.ONE, Rating.NOT_RATED);
+    }
+}
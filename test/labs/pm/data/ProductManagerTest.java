@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Locale;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * Tests how {@link ProductManager} publishes writes to its catalog.
+ *
+ * @author User
+ */
+public class ProductManagerTest {
+
+    @Test
+    public void reviewOfStaleCopyKeepsLaterChanges() {
+        ProductManager pm = new ProductManager(Locale.UK);
+        Product stale = pm.createProduct(1, "Tea", new BigDecimal("1.99"), Rating.NOT_RATED);
+        pm.changePrice(1, new BigDecimal("2.49"));
+
+        Product reviewed = pm.reviewProduct(stale, Rating.FIVE_STAR, "Lovely");
+
+        assertEquals(new BigDecimal("2.49"), reviewed.getPrice());
+        assertEquals(new BigDecimal("2.49"), pm.findProduct(1).getPrice());
+        assertEquals(Rating.FIVE_STAR, pm.findProduct(1).getRating());
+        assertEquals(1, pm.snapshot().getReviews(1).size());
+    }
+
+    @Test
+    public void reviewOfUnknownProductIsNotAdded() {
+        ProductManager pm = new ProductManager(Locale.UK);
+        Product outside = new Drink(9, "Coffee", BigDecimal.ONE, Rating.NOT_RATED);
+
+        assertNull(pm.reviewProduct(outside, Rating.THREE_STAR, "Never listed"));
+        assertNull(pm.findProduct(9));
+        assertEquals(0, pm.snapshot().size());
+    }
+
+    @Test
+    public void archivedProductsKeepTheirReviews() {
+        ProductManager pm = new ProductManager(Locale.UK);
+        ProductArchive archive = new ProductArchive();
+        for (int id = 0; id < 50; id++) {
+            pm.createProduct(id, "Tea " + id, BigDecimal.ONE, Rating.NOT_RATED);
+            pm.reviewProduct(id, Rating.FOUR_STAR, "Nice " + id);
+        }
+        pm.archiveProduct(7, archive);
+        pm.archiveProducts(List.of(1, 2, 3, 99), archive);
+
+        assertEquals(4, archive.size());
+        assertEquals(46, pm.snapshot().size());
+        assertNull(pm.findProduct(2));
+        assertEquals("Tea 2", archive.getProduct(2).getName());
+        assertEquals("Nice 7", archive.getReviews(7).get(0).getComments());
+        assertNull(archive.getProduct(99));
+        assertEquals(List.of(), archive.getReviews(99));
+    }
+
+    @Test
+    public void failingListenerDoesNotStopTheOthers() {
+        ProductManager pm = new ProductManager(Locale.UK);
+        pm.addCatalogListener((previous, current) -> {
+            throw new IllegalStateException("listener failure");
+        });
+        ReviewIndex index = new ReviewIndex();
+        pm.addCatalogListener(index);
+        pm.createProduct(1, "Tea", BigDecimal.ONE, Rating.NOT_RATED);
+        pm.reviewProduct(1, Rating.FOUR_STAR, "hot tea");
+        pm.createProduct(2, "Coffee", BigDecimal.ONE, Rating.NOT_RATED);
+        pm.reviewProduct(2, Rating.TWO_STAR, "hot coffee");
+
+        assertEquals(1, pm.archiveProducts(List.of(1), new ProductArchive()).size());
+        assertNull(pm.findProduct(1));
+        assertArrayEquals(new int[]{1}, index.search("hot", null));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.text.NumberFormat;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.List;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests that {@link ReportRenderer} renders the same text as
+ * {@code MessageFormat} over the same templates.
+ *
+ * @author User
+ */
+public class ReportRendererTest {
+
+    private static final List<Review> REVIEWS = List.of(
+            new Review(Rating.FOUR_STAR, "Nice {hot} tea, isn't it"),
+            new Review(Rating.ONE_STAR, null));
+
+    @Test
+    public void bundledTemplatesMatchMessageFormat() {
+        for (Locale locale : new Locale[]{Locale.UK, Locale.US, Locale.FRANCE, Locale.GERMANY, Locale.JAPAN}) {
+            ResourceBundle bundle = ResourceBundle.getBundle("labs.pm.data.resources", locale);
+            assertRendersLikeMessageFormat(bundle, locale);
+        }
+    }
+
+    @Test
+    public void quotedAndUnsuppliedArgumentsMatchMessageFormat() {
+        ResourceBundle bundle = new ListResourceBundle() {
+            @Override
+            protected Object[][] getContents() {
+                return new Object[][]{
+                    {"product", "It''s '{0}' {0} at {1} '{'{2}'}' until {3} {7}"},
+                    {"review", "'''{0}''' {1}{1} {2}"},
+                    {"no.review", "None"}};
+            }
+        };
+        assertRendersLikeMessageFormat(bundle, Locale.UK);
+    }
+
+    @Test
+    public void nullNameRendersAsNull() {
+        ResourceBundle bundle = ResourceBundle.getBundle("labs.pm.data.resources", Locale.UK);
+        ReportRenderer renderer = renderer(bundle, Locale.UK);
+        Product product = new Drink(1, null, BigDecimal.ONE, Rating.NOT_RATED);
+        assertEquals(expected(bundle, Locale.UK, product, List.of()),
+                renderer.format(product, product.getPrice(), List.of()));
+    }
+
+    private static void assertRendersLikeMessageFormat(ResourceBundle bundle, Locale locale) {
+        ReportRenderer renderer = renderer(bundle, locale);
+        Product[] products = {
+            new Food(1, "Cake", new BigDecimal("1234.5"), Rating.FIVE_STAR, LocalDate.of(2025, 12, 31)),
+            new Drink(2, "Tea", new BigDecimal("1.99"), Rating.NOT_RATED)};
+        for (Product product : products) {
+            for (List<Review> reviews : List.of(List.<Review>of(), REVIEWS)) {
+                String expected = expected(bundle, locale, product, reviews);
+                assertEquals(locale + " " + product, expected, renderer.format(product, product.getPrice(), reviews));
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                renderer.print(product, product.getPrice(), reviews, new PrintStream(bytes, true, StandardCharsets.UTF_8));
+                assertEquals(expected + System.lineSeparator(), bytes.toString(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static ReportRenderer renderer(ResourceBundle bundle, Locale locale) {
+        return new ReportRenderer(bundle, dateFormat(locale), NumberFormat.getCurrencyInstance(locale));
+    }
+
+    private static DateTimeFormatter dateFormat(Locale locale) {
+        return DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT).localizedBy(locale);
+    }
+
+    /**
+     * Renders a report the way it was done before the renderer, with
+     * {@code MessageFormat}.
+     */
+    private static String expected(ResourceBundle bundle, Locale locale, Product product, List<Review> reviews) {
+        StringBuilder txt = new StringBuilder();
+        txt.append(MessageFormat.format(bundle.getString("product"),
+                product.getName(),
+                NumberFormat.getCurrencyInstance(locale).format(product.getPrice()),
+                product.getRating().getStars(),
+                dateFormat(locale).format(product.getBestBefore()))).append('\n');
+        if (reviews.isEmpty()) {
+            txt.append(bundle.getString("no.review")).append('\n');
+        }
+        for (Review review : reviews) {
+            txt.append(MessageFormat.format(bundle.getString("review"),
+                    review.getRating().getStars(),
+                    review.getComments())).append('\n');
+        }
+        return txt.toString();
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2025 User
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package labs.pm.data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests the postings lists and cursors of {@link ReviewIndex}, and how the
+ * index follows the catalog it listens to.
+ *
+ * @author User
+ */
+public class ReviewIndexTest {
+
+    @Test
+    public void tokenizeSplitsOnNonWordCharacters() {
+        assertEquals(List.of("rather", "weak", "tea", "2", "cups"),
+                ReviewIndex.tokenize("Rather weak-TEA!! (2 cups)"));
+        assertEquals(List.of(), ReviewIndex.tokenize(null));
+        assertEquals(List.of(), ReviewIndex.tokenize(" ... "));
+    }
+
+    @Test
+    public void wordSearchFindsEveryDocumentInOrder() {
+        ReviewIndex index = new ReviewIndex();
+        index.add(1, new Review(Rating.FOUR_STAR, "Nice hot tea"));
+        index.add(2, new Review(Rating.TWO_STAR, "Too hot"));
+        index.add(1, new Review(Rating.FIVE_STAR, "Just right"));
+        index.add(3, new Review(Rating.ONE_STAR, "hot HOT hot"));
+
+        assertArrayEquals(new int[]{0, 1, 3}, index.search("hot", null));
+        assertArrayEquals(new int[]{3}, index.search("Hot", Rating.ONE_STAR));
+        assertArrayEquals(new int[0], index.search("cold", null));
+        assertEquals(3, index.getProductId(3));
+        assertEquals(Rating.TWO_STAR, index.getRating(1));
+    }
+
+    @Test
+    public void phraseSearchRequiresAdjacentWordsInOrder() {
+        ReviewIndex index = new ReviewIndex();
+        index.add(1, new Review(Rating.FOUR_STAR, "hot tea"));
+        index.add(1, new Review(Rating.FOUR_STAR, "tea hot"));
+        index.add(1, new Review(Rating.FOUR_STAR, "hot and tea"));
+        index.add(1, new Review(Rating.FOUR_STAR, "tea, hot tea and more hot tea"));
+
+        assertArrayEquals(new int[]{0, 3}, index.searchPhrase("hot tea", null));
+        assertArrayEquals(new int[]{1, 3}, index.searchPhrase("tea hot", null));
+        assertArrayEquals(new int[]{3}, index.searchPhrase("hot tea and more", null));
+        assertArrayEquals(new int[0], index.searchPhrase("", null));
+    }
+
+    @Test
+    public void postingsDecodeLargeGapsAndPositions() {
+        ReviewIndex index = new ReviewIndex();
+        StringBuilder longReview = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            longReview.append("filler ");
+        }
+        longReview.append("rare word");
+        for (int doc = 0; doc < 5000; doc++) {
+            String comments = (doc == 17 || doc == 4999) ? longReview.toString() : "filler";
+            index.add(doc, new Review(Rating.THREE_STAR, comments));
+        }
+        // document gaps and positions beyond one varint byte
+        assertArrayEquals(new int[]{17, 4999}, index.searchPhrase("rare word", null));
+        assertArrayEquals(new int[]{17, 4999}, index.searchPhrase("filler rare", null));
+        assertEquals(5000, index.search("filler", null).length);
+    }
+
+    @Test
+    public void phraseSearchMatchesBruteForce() {
+        String[] vocabulary = {"a", "b", "c", "d"};
+        Random random = new Random(11);
+        ReviewIndex index = new ReviewIndex();
+        List<List<String>> docs = new ArrayList<>();
+        for (int doc = 0; doc < 2000; doc++) {
+            List<String> words = new ArrayList<>();
+            for (int i = random.nextInt(12); i > 0; i--) {
+                words.add(vocabulary[random.nextInt(vocabulary.length)]);
+            }
+            docs.add(words);
+            index.add(doc, new Review(Rating.values()[random.nextInt(6)], String.join(" ", words)));
+        }
+        for (String phrase : new String[]{"a", "a b", "b a", "c c", "a b c", "d d d", "a b c d"}) {
+            List<String> query = ReviewIndex.tokenize(phrase);
+            List<Integer> expected = new ArrayList<>();
+            for (int doc = 0; doc < docs.size(); doc++) {
+                if (Collections.indexOfSubList(docs.get(doc), query) >= 0) {
+                    expected.add(doc);
+                }
+            }
+            assertArrayEquals(phrase, expected.stream().mapToInt(Integer::intValue).toArray(),
+                    index.searchPhrase(phrase, null));
+            for (Rating rating : Rating.values()) {
+                int[] rated = expected.stream().mapToInt(Integer::intValue)
+                        .filter(doc -> index.getRating(doc) == rating).toArray();
+                assertArrayEquals(phrase + " " + rating, rated, index.searchPhrase(phrase, rating));
+            }
+        }
+    }
+
+    @Test
+    public void ratingSearchReadsOnlyThatRatingsPostings() {
+        ReviewIndex index = new ReviewIndex();
+        for (int doc = 0; doc < 1000; doc++) {
+            Rating rating = (doc == 5 || doc == 700 || doc == 999) ? Rating.FIVE_STAR : Rating.THREE_STAR;
+            index.add(doc, new Review(rating, (doc % 100 == 0) ? "hot tea" : "tea"));
+        }
+        assertArrayEquals(new int[]{5, 700, 999}, index.search("tea", Rating.FIVE_STAR));
+        assertArrayEquals(new int[]{700}, index.searchPhrase("hot tea", Rating.FIVE_STAR));
+        assertArrayEquals(new int[0], index.search("tea", Rating.ONE_STAR));
+        assertEquals(997, index.search("tea", Rating.THREE_STAR).length);
+    }
+
+    @Test
+    public void queriesRunWhileReviewsAreIndexed() throws Exception {
+        ReviewIndex index = new ReviewIndex();
+        Thread writer = new Thread(() -> {
+            for (int doc = 0; doc < 20_000; doc++) {
+                index.add(doc, new Review(Rating.values()[doc % 6], (doc % 3 == 0) ? "hot tea" : "tea"));
+            }
+        });
+        writer.start();
+        int seen = 0;
+        while (writer.isAlive() || seen < 20_000) {
+            int[] found = index.search("tea", null);
+            // every query sees a prefix of the documents, at least as long as the last one
+            assertTrue(found.length >= seen);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals(i, found[i]);
+            }
+            seen = found.length;
+        }
+        writer.join();
+        assertEquals(20_000 / 3 + 1, index.searchPhrase("hot tea", null).length);
+    }
+
+    @Test
+    public void lateListenerIndexesExistingReviews() {
+        ProductManager pm = new ProductManager(Locale.UK);
+        pm.createProduct(1, "Tea", BigDecimal.ONE, Rating.NOT_RATED);
+        pm.reviewProduct(1, Rating.FOUR_STAR, "Nice hot tea");
+        pm.reviewProduct(1, Rating.TWO_STAR, "Rather weak tea");
+
+        ReviewIndex index = new ReviewIndex();
+        pm.addCatalogListener(index);
+        pm.reviewProduct(1, Rating.FIVE_STAR, "Just right tea");
+
+        assertEquals(3, index.size());
+        assertArrayEquals(new int[]{0, 1, 2}, index.search("tea", null));
+        assertArrayEquals(new int[]{1}, index.searchPhrase("weak tea", null));
+    }
+
+    @Test
+    public void archivedProductReviewsStopMatching() {
+        ProductManager pm = new ProductManager(Locale.UK);
+        ReviewIndex index = new ReviewIndex();
+        pm.addCatalogListener(index);
+        pm.createProduct(1, "Tea", BigDecimal.ONE, Rating.NOT_RATED);
+        pm.createProduct(2, "Coffee", BigDecimal.ONE, Rating.NOT_RATED);
+        pm.reviewProduct(1, Rating.FOUR_STAR, "hot tea");
+        pm.reviewProduct(2, Rating.TWO_STAR, "hot coffee");
+        pm.reviewProduct(1, Rating.FIVE_STAR, "very hot tea");
+
+        pm.archiveProduct(1, new ProductArchive());
+        assertArrayEquals(new int[]{1}, index.search("hot", null));
+
+        pm.createProduct(1, "Tea", BigDecimal.ONE, Rating.NOT_RATED);
+        pm.reviewProduct(1, Rating.THREE_STAR, "hot again");
+        assertArrayEquals(new int[]{1, 3}, index.search("hot", null));
+    }
+}